@@ -0,0 +1,407 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2022 Mingun.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ru.mingun.kaitai.struct;
+
+import io.kaitai.struct.KaitaiStream;
+import io.kaitai.struct.KaitaiStruct;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Map of the root stream regions, consumed by the fields of parsed structure.
+ * Coverage is calculated directly from the debug position information of the
+ * structures, without creation of the tree nodes, and stored as sorted arrays
+ * of disjoint intervals, so all range queries are answered in {@code O(log n)}.
+ * <p>
+ * Only leaf values are taken into account: a struct covers only bytes, consumed
+ * by its fields, so unparsed padding or trailing data of sized structs will be
+ * reported as gaps. Content of processed substreams (for example, decompressed
+ * data) is not located in the root stream, so such fields are treated as leaves.
+ * Structs, read from the stream of an ancestor (as instances with an explicit
+ * {@code io}), are located in that stream, but other values with an explicit
+ * {@code io} are considered as read from the stream of their struct.
+ *
+ * @author Mingun
+ */
+public class Coverage {
+  /** Size of the root stream. */
+  private final long size;
+  /** Disjoint regions of the root stream, consumed by at least one field. */
+  private final Intervals covered;
+  /** Disjoint regions of the root stream, consumed by more than one field. */
+  private final Intervals overlaps;
+
+  /**
+   * Calculates coverage of the root stream of the specified structure.
+   *
+   * @param root the root structure, which stream is analyzed
+   *
+   * @throws ReflectiveOperationException If kaitai class was genereted without
+   *         debug info (which includes position information)
+   */
+  public Coverage(KaitaiStruct root) throws ReflectiveOperationException {
+    final Collector collector = new Collector();
+    collector.collect(root, 0);
+
+    final long[] starts = Arrays.copyOf(collector.starts, collector.count);
+    final long[] ends   = Arrays.copyOf(collector.ends, collector.count);
+    // Sweep line does not need pairing of starts and ends, so sort them independently
+    Arrays.sort(starts);
+    Arrays.sort(ends);
+
+    this.size = root._io().size();
+    this.covered  = new Intervals();
+    this.overlaps = new Intervals();
+
+    int depth = 0;
+    long coveredStart = 0;
+    long overlapStart = 0;
+    for (int i = 0, j = 0; j < ends.length;) {
+      // Regions are half-open, so end at the same position as start should be processed first
+      if (i < starts.length && starts[i] < ends[j]) {
+        final long pos = starts[i++];
+        ++depth;
+        if (depth == 1) coveredStart = pos;
+        if (depth == 2) overlapStart = pos;
+      } else {
+        final long pos = ends[j++];
+        if (depth == 2) overlaps.add(overlapStart, pos);
+        if (depth == 1) covered.add(coveredStart, pos);
+        --depth;
+      }
+    }
+    covered.complete();
+    overlaps.complete();
+  }
+
+  /** Returns size of the analyzed stream in bytes. */
+  public long getSize() { return size; }
+
+  /** Returns number of bytes, consumed by at least one field. */
+  public long getCoveredSize() { return covered.total(); }
+
+  /**
+   * Returns share of the stream, consumed by fields.
+   *
+   * @return Number in range {@code [0; 1]}. For the empty stream returns {@code 1}
+   */
+  public double getCoveredRatio() {
+    return size == 0 ? 1.0 : (double)covered.total() / size;
+  }
+
+  /**
+   * Checks, whether the byte at the specified offset is consumed by any field.
+   *
+   * @param offset Byte offset from the begin of a root stream
+   * @return {@code true}, if at least one field includes that byte
+   */
+  public boolean isCovered(long offset) { return covered.contains(offset); }
+
+  /**
+   * Checks, whether the byte at the specified offset is consumed by several fields.
+   *
+   * @param offset Byte offset from the begin of a root stream
+   * @return {@code true}, if more than one field includes that byte
+   */
+  public boolean isOverlapped(long offset) { return overlaps.contains(offset); }
+
+  /**
+   * Returns number of consumed bytes in the specified region.
+   *
+   * @param start Byte offset from the begin of a root stream, where region starts
+   * @param end Byte offset from the begin of a root stream, where region ends (exclusive)
+   * @return Number of bytes in the region, consumed by at least one field
+   */
+  public long getCoveredSize(long start, long end) {
+    return end <= start ? 0 : covered.total(end) - covered.total(start);
+  }
+
+  /** Returns disjoint regions, consumed by at least one field, in order of offset. */
+  public List<Span> getCovered() { return getCovered(0, Long.MAX_VALUE); }
+
+  /**
+   * Returns disjoint regions, consumed by at least one field, clipped to the specified region.
+   *
+   * @param start Byte offset from the begin of a root stream, where region starts
+   * @param end Byte offset from the begin of a root stream, where region ends (exclusive)
+   * @return Consumed regions in order of offset
+   */
+  public List<Span> getCovered(long start, long end) { return covered.spans(start, end); }
+
+  /** Returns regions, consumed by more than one field, in order of offset. */
+  public List<Span> getOverlaps() { return getOverlaps(0, Long.MAX_VALUE); }
+
+  /**
+   * Returns regions, consumed by more than one field, clipped to the specified region.
+   *
+   * @param start Byte offset from the begin of a root stream, where region starts
+   * @param end Byte offset from the begin of a root stream, where region ends (exclusive)
+   * @return Overlapped regions in order of offset
+   */
+  public List<Span> getOverlaps(long start, long end) { return overlaps.spans(start, end); }
+
+  /** Returns regions of the stream, not consumed by any field, in order of offset. */
+  public List<Span> getGaps() { return getGaps(0, size); }
+
+  /**
+   * Returns regions of the stream, not consumed by any field, in the specified region.
+   *
+   * @param start Byte offset from the begin of a root stream, where region starts
+   * @param end Byte offset from the begin of a root stream, where region ends (exclusive)
+   * @return Not consumed regions in order of offset
+   */
+  public List<Span> getGaps(long start, long end) {
+    final List<Span> result = new ArrayList<>();
+    long pos = start;
+    for (final Span span : covered.spans(start, end)) {
+      if (pos < span.getStart()) {
+        result.add(new Span(pos, span.getStart()));
+      }
+      pos = span.getEnd();
+    }
+    if (pos < end) {
+      result.add(new Span(pos, end));
+    }
+    return result;
+  }
+
+  /** Sorted list of disjoint half-open intervals with prefix sums of its sizes. */
+  private static final class Intervals {
+    private long[] starts = new long[16];
+    private long[] ends   = new long[16];
+    /** {@code totals[i]} is the sum of sizes of intervals before {@code i}. */
+    private long[] totals;
+    private int count;
+
+    /** Appends interval after all existing intervals, merging adjacent ones. */
+    void add(long start, long end) {
+      if (start >= end) {
+        return;
+      }
+      if (count > 0 && ends[count - 1] == start) {
+        ends[count - 1] = end;
+        return;
+      }
+      if (count == starts.length) {
+        starts = Arrays.copyOf(starts, count * 2);
+        ends   = Arrays.copyOf(ends, count * 2);
+      }
+      starts[count] = start;
+      ends[count]   = end;
+      ++count;
+    }
+
+    /** Trims storage and calculates prefix sums after all intervals was added. */
+    void complete() {
+      starts = Arrays.copyOf(starts, count);
+      ends   = Arrays.copyOf(ends, count);
+      totals = new long[count + 1];
+      for (int i = 0; i < count; ++i) {
+        totals[i + 1] = totals[i] + ends[i] - starts[i];
+      }
+    }
+
+    /** Returns index of the last interval which starts at or before {@code pos}, or {@code -1}. */
+    private int floor(long pos) {
+      final int i = Arrays.binarySearch(starts, pos);
+      return i >= 0 ? i : -i - 2;
+    }
+
+    boolean contains(long pos) {
+      final int i = floor(pos);
+      return i >= 0 && pos < ends[i];
+    }
+
+    long total() { return totals[count]; }
+
+    /** Returns total size of intervals before {@code pos}. */
+    long total(long pos) {
+      final int i = floor(pos);
+      if (i < 0) {
+        return 0;
+      }
+      return totals[i] + Math.min(pos, ends[i]) - starts[i];
+    }
+
+    List<Span> spans(long start, long end) {
+      final List<Span> result = new ArrayList<>();
+      int i = floor(start);
+      if (i < 0 || ends[i] <= start) {
+        ++i;
+      }
+      for (; i < count && starts[i] < end; ++i) {
+        result.add(new Span(Math.max(start, starts[i]), Math.min(end, ends[i])));
+      }
+      return result;
+    }
+  }
+
+  /** Walks over the parsed structures and collects regions of the leaf values. */
+  private static final class Collector {
+    /** Cached reflection information for each encountered class. */
+    private final Map<Class<?>, Info> infos = new HashMap<>();
+    /** Offsets in the root stream of the streams of the structures being collected. */
+    private final Map<KaitaiStream, Long> bases = new IdentityHashMap<>();
+    private long[] starts = new long[64];
+    private long[] ends   = new long[64];
+    private int count;
+
+    /**
+     * Collects regions of the structure fields.
+     *
+     * @param struct Structure to analyze
+     * @param base Offset of the structure stream in the root stream
+     */
+    void collect(KaitaiStruct struct, long base) throws ReflectiveOperationException {
+      final Info info = info(struct.getClass());
+      final KaitaiStream io = struct._io();
+      // Stream could be already registered by an ancestor, which has the same stream
+      final boolean registered = bases.putIfAbsent(io, base) == null;
+      collect(struct, info, io, base);
+      if (registered) {
+        bases.remove(io);
+      }
+    }
+
+    private void collect(KaitaiStruct struct, Info info, KaitaiStream io, long base) throws ReflectiveOperationException {
+      final Map<String, Integer> attrStart = (Map<String, Integer>)info.attrStart.get(struct);
+      final Map<String, Integer> attrEnd   = (Map<String, Integer>)info.attrEnd.get(struct);
+      final Map<String, ? extends List<Integer>> arrStart = (Map<String, ? extends List<Integer>>)info.arrStart.get(struct);
+      final Map<String, ? extends List<Integer>> arrEnd   = (Map<String, ? extends List<Integer>>)info.arrEnd.get(struct);
+
+      for (final Map.Entry<String, Integer> entry : attrStart.entrySet()) {
+        final String name = entry.getKey();
+        final Integer s = entry.getValue();
+        final Integer e = attrEnd.get(name);
+        // Field reading was failed
+        if (s == null || e == null) {
+          continue;
+        }
+        final Method getter = info.getter(name);
+        final Object value = getter == null ? null : getter.invoke(struct);
+        if (value instanceof List) {
+          final List<?> list = (List<?>)value;
+          final List<Integer> sa = arrStart.get(name);
+          final List<Integer> ea = arrEnd.get(name);
+          if (sa == null || ea == null) {
+            add(base + s, base + e);
+            continue;
+          }
+          final int size = Math.min(list.size(), Math.min(sa.size(), ea.size()));
+          for (int i = 0; i < size; ++i) {
+            collect(list.get(i), io, base, sa.get(i), ea.get(i));
+          }
+        } else {
+          collect(value, io, base, s, e);
+        }
+      }
+    }
+
+    private void collect(Object value, KaitaiStream io, long base, long start, long end) throws ReflectiveOperationException {
+      if (value instanceof KaitaiStruct) {
+        final KaitaiStruct struct = (KaitaiStruct)value;
+        final KaitaiStream sub = struct._io();
+        if (sub == io) {
+          collect(struct, base);
+          return;
+        }
+        // Struct is read from the stream of an ancestor, for example, by an
+        // instance with an explicit `io`
+        final Long ancestor = bases.get(sub);
+        if (ancestor != null) {
+          collect(struct, ancestor);
+          return;
+        }
+        // Substream with the same size is a copy of the parent stream region,
+        // otherwise it contains processed data which is not located in the root stream
+        if (sub != null && sub.size() == end - start) {
+          collect(struct, base + start);
+          return;
+        }
+      }
+      add(base + start, base + end);
+    }
+
+    private void add(long start, long end) {
+      if (start >= end) {
+        return;
+      }
+      if (count == starts.length) {
+        starts = Arrays.copyOf(starts, count * 2);
+        ends   = Arrays.copyOf(ends, count * 2);
+      }
+      starts[count] = start;
+      ends[count]   = end;
+      ++count;
+    }
+
+    private Info info(Class<?> clazz) throws ReflectiveOperationException {
+      Info info = infos.get(clazz);
+      if (info == null) {
+        info = new Info(clazz);
+        infos.put(clazz, info);
+      }
+      return info;
+    }
+  }
+
+  /** Reflection information about generated class. */
+  private static final class Info {
+    private final Class<?> clazz;
+    private final Field attrStart;
+    private final Field attrEnd;
+    private final Field arrStart;
+    private final Field arrEnd;
+    private final Map<String, Method> getters = new HashMap<>();
+
+    Info(Class<?> clazz) throws ReflectiveOperationException {
+      this.clazz = clazz;
+      this.attrStart = clazz.getDeclaredField("_attrStart");
+      this.attrEnd   = clazz.getDeclaredField("_attrEnd");
+      this.arrStart  = clazz.getDeclaredField("_arrStart");
+      this.arrEnd    = clazz.getDeclaredField("_arrEnd");
+    }
+
+    /** Returns getter of the field or {@code null}, if class has no such getter. */
+    Method getter(String name) {
+      if (getters.containsKey(name)) {
+        return getters.get(name);
+      }
+      Method getter;
+      try {
+        getter = clazz.getMethod(name);
+      } catch (NoSuchMethodException ex) {
+        getter = null;
+      }
+      getters.put(name, getter);
+      return getter;
+    }
+  }
+}
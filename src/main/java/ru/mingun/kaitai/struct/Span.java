@@ -54,4 +54,18 @@ public class Span {
    * @return Size of this node in bytes
    */
   public long size() { return end - start; }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) return true;
+    if (!(obj instanceof Span)) return false;
+    final Span other = (Span)obj;
+    return start == other.start && end == other.end;
+  }
+
+  @Override
+  public int hashCode() { return Long.hashCode(start) * 31 + Long.hashCode(end); }
+
+  @Override
+  public String toString() { return "[" + start + ", " + end + ')'; }
 }
@@ -23,8 +23,16 @@
  */
 package ru.mingun.kaitai.struct.tree;
 
+import io.kaitai.struct.ByteBufferKaitaiStream;
+import io.kaitai.struct.KaitaiStream;
 import io.kaitai.struct.KaitaiStruct;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
 import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreePath;
 import ru.mingun.kaitai.struct.Span;
 
 /**
@@ -35,7 +43,7 @@ import ru.mingun.kaitai.struct.Span;
  */
 public abstract class ChunkNode extends ValueNode {
   /** Space that this node occupies in a stream. */
-  protected final Span span;
+  protected Span span;
 
   /** {@code true} if this node came from {@code seq}, {@code false} if it came from {@code instances}. */
   protected final boolean isSequential;
@@ -59,6 +67,65 @@ public abstract class ChunkNode extends ValueNode {
    */
   public boolean isSequential() { return isSequential; }
 
+  /**
+   * Returns read-only view of the bytes, that this node occupies in a stream.
+   * Returned buffer shares content with the buffer of the stream, so no data is
+   * copied; it is zero-positioned, has a capacity equal to the span size, and is
+   * independent from other buffers, returned by this method.
+   *
+   * @return View of the node bytes or {@code null}, if node does not occupy space
+   *         in the stream (see {@link #getSpan}) or stream is not backed by a
+   *         {@link ByteBuffer} (that is, is not a {@link ByteBufferKaitaiStream})
+   */
+  public ByteBuffer asByteBuffer() {
+    if (span == null) {
+      return null;
+    }
+    final StructNode owner = owner();
+    final KaitaiStream io = owner == null ? null : owner.getValue()._io();
+    if (!(io instanceof ByteBufferKaitaiStream)) {
+      return null;
+    }
+    final ByteBuffer buffer = ((ByteBufferKaitaiStream)io).asRoBuffer();
+    // Span is absolute, but buffer contains only the owner stream
+    final long start = span.getStart() - owner.getStreamOffset();
+    final long end = span.getEnd() - owner.getStreamOffset();
+    if (start < 0 || start > end || end > buffer.limit()) {
+      return null;
+    }
+    // Cast to Buffer for compatibility with Java 8, where ByteBuffer does not
+    // override these methods with covariant return types
+    ((Buffer)buffer).limit((int)end);
+    ((Buffer)buffer).position((int)start);
+    return buffer.slice();
+  }
+
+  /**
+   * Returns stream with bytes, that this node occupies in a stream. Stream reads
+   * data directly from the buffer of the stream without copying it to the heap,
+   * so it is suitable for processing of the large values.
+   *
+   * @return Stream over node bytes or {@code null} in the same cases as {@link #asByteBuffer}
+   */
+  public InputStream asInputStream() {
+    final ByteBuffer buffer = asByteBuffer();
+    return buffer == null ? null : new ByteBufferInputStream(buffer);
+  }
+
+  /**
+   * Returns struct, from which stream this node was read. This is the nearest
+   * struct, containing this node.
+   *
+   * @return Struct node or {@code null}, if node is not a part of the {@link StructNode}
+   */
+  StructNode owner() {
+    TreeNode node = parent;
+    while (node != null && !(node instanceof StructNode)) {
+      node = node.getParent();
+    }
+    return (StructNode)node;
+  }
+
   /**
    * Creates tree node for object.
    *
@@ -80,4 +147,161 @@ public abstract class ChunkNode extends ValueNode {
       ? new StructNode(name, (KaitaiStruct)value, this, span, isSequential)
       : new SimpleNode(name, value, valueClass, this, span, isSequential);
   }
+
+  //<editor-fold defaultstate="collapsed" desc="Reload">
+  /**
+   * Checks, whether the specified node, created from a reparsed stream in place of
+   * this node, can be merged into this node by {@link #merge}.
+   *
+   * @param node Node for the same field in the reparsed structure
+   *
+   * @return {@code true}, if {@code node} represents the same kind of data as this node
+   */
+  abstract boolean isCompatible(ChunkNode node);
+
+  /**
+   * Updates this node in place with the content of the specified node and notifies
+   * {@code model} about changes in the subtree of this node. Events about this node
+   * itself are the responsibility of the caller, which should fire them when this
+   * method returns {@code true}.
+   *
+   * @param node Compatible (see {@link #isCompatible}) node for the same field
+   *        in the reparsed structure
+   * @param path Path to this node in the {@code model}
+   * @param model Model for notification about changes
+   *
+   * @return {@code true}, if presentation of this node itself is changed
+   */
+  abstract boolean merge(ChunkNode node, TreePath path, StructModel model);
+
+  /**
+   * Merges list of the child nodes, created for reparsed stream, with the current
+   * child nodes. Compatible nodes from the {@code oldChildren} list replaces nodes
+   * in the {@code newChildren} list and updated in place, so all that nodes retain
+   * their identity and, therefore, expansion state in the views.
+   * <p>
+   * Nodes, that were not created yet, are represented by {@code null} in the
+   * {@code oldChildren} list. No one knows them, so corresponding new nodes are
+   * not requested and no events are fired for them, except removal of the nodes
+   * after the end of {@code newChildren}, which therefore should be created.
+   *
+   * @param oldChildren Current child nodes of the node
+   * @param newChildren Child nodes, created for the reparsed value. Should be already
+   *        set as children of the node
+   * @param path Path to the node, which children are merged
+   * @param model Model for notification about changes
+   */
+  static void mergeChildren(List<ChunkNode> oldChildren, List<ChunkNode> newChildren, TreePath path, StructModel model) {
+    final int oldCount = oldChildren.size();
+    final int newCount = newChildren.size();
+    final int common = Math.min(oldCount, newCount);
+
+    final int[] replaced = new int[common];
+    int replacedCount = 0;
+    for (int i = 0; i < common; ++i) {
+      final ChunkNode o = oldChildren.get(i);
+      if (o == null || o.isCompatible(newChildren.get(i))) {
+        continue;
+      }
+      replaced[replacedCount++] = i;
+    }
+
+    // Place retained nodes before any notifications, so listeners will see the consistent tree
+    final ChunkNode[] fresh = new ChunkNode[common];
+    for (int i = 0, r = 0; i < common; ++i) {
+      if (r < replacedCount && replaced[r] == i) {
+        ++r;
+        continue;
+      }
+      final ChunkNode o = oldChildren.get(i);
+      if (o != null) {
+        fresh[i] = newChildren.set(i, o);
+      }
+    }
+
+    final Object[] removed = new Object[replacedCount];
+    for (int i = 0; i < replacedCount; ++i) {
+      removed[i] = oldChildren.get(replaced[i]);
+    }
+    final int[] replacedIndices = Arrays.copyOf(replaced, replacedCount);
+    model.fireTreeNodesRemoved(path, replacedIndices, removed);
+    model.fireTreeNodesInserted(path, replacedIndices, nodes(newChildren, replacedIndices));
+
+    if (newCount < oldCount) {
+      final int[] indices = range(newCount, oldCount);
+      model.fireTreeNodesRemoved(path, indices, nodes(oldChildren, indices));
+    } else
+    if (newCount > oldCount) {
+      final int[] indices = range(oldCount, newCount);
+      model.fireTreeNodesInserted(path, indices, nodes(newChildren, indices));
+    }
+
+    final int[] changed = new int[common];
+    int changedCount = 0;
+    for (int i = 0; i < common; ++i) {
+      if (fresh[i] == null) {
+        continue;
+      }
+      final ChunkNode o = newChildren.get(i);
+      if (o.merge(fresh[i], path.pathByAddingChild(o), model)) {
+        changed[changedCount++] = i;
+      }
+    }
+    final int[] changedIndices = Arrays.copyOf(changed, changedCount);
+    model.fireTreeNodesChanged(path, changedIndices, nodes(newChildren, changedIndices));
+  }
+
+  private static int[] range(int from, int to) {
+    final int[] result = new int[to - from];
+    for (int i = 0; i < result.length; ++i) {
+      result[i] = from + i;
+    }
+    return result;
+  }
+
+  private static Object[] nodes(List<ChunkNode> children, int[] indices) {
+    final Object[] result = new Object[indices.length];
+    for (int i = 0; i < indices.length; ++i) {
+      result[i] = children.get(indices[i]);
+    }
+    return result;
+  }
+  //</editor-fold>
+
+  /** Input stream, that reads bytes from a buffer. */
+  private static final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      final int count = Math.min(len, buffer.remaining());
+      buffer.get(b, off, count);
+      return count;
+    }
+
+    @Override
+    public long skip(long n) {
+      final int count = (int)Math.max(0, Math.min(n, buffer.remaining()));
+      ((Buffer)buffer).position(buffer.position() + count);
+      return count;
+    }
+
+    @Override
+    public int available() { return buffer.remaining(); }
+  }
 }
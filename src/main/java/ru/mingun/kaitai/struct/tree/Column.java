@@ -0,0 +1,358 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2022 Mingun.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ru.mingun.kaitai.struct.tree;
+
+import io.kaitai.struct.KaitaiStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.BitSet;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Values of one field of all elements of a list, extracted lazily in blocks of rows.
+ * Numeric and boolean values are stored in primitive arrays, so extraction and
+ * sorting do not create objects for each row.
+ *
+ * @author Mingun
+ */
+final class Column {
+  /** Number of rows, which values are extracted at once. */
+  static final int BLOCK_SIZE = 256;
+  /** Parts of arrays larger than this are sorted in parallel. */
+  private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+  /** Kind of the storage for column values. */
+  enum Kind {
+    /** Integral numbers, stored in {@code long[]}. */
+    LONG,
+    /** Floating point numbers, stored in {@code double[]}. */
+    DOUBLE,
+    /** Boolean values, stored in {@code long[]} as {@code 0} and {@code 1}. */
+    BOOLEAN,
+    /** Any other values, stored in {@code Object[]}. */
+    OBJECT,
+  }
+
+  /** Elements of the list. */
+  private final List<?> rows;
+  /** Getter of the field or {@code null}, if column represents list elements itself. */
+  private final Method getter;
+  /** Static type of the values with primitives replaced by their wrappers. */
+  private final Class<?> type;
+  private final Kind kind;
+
+  private long[] longs;
+  private double[] doubles;
+  private Object[] objects;
+  /** Rows with {@code null} values in primitive columns. */
+  private final BitSet nulls = new BitSet();
+  /** Blocks of rows, which values are already extracted. */
+  private final BitSet loaded = new BitSet();
+
+  /**
+   * Creates column for the field of list elements.
+   *
+   * @param rows List elements
+   * @param getter Getter of the field, which values are contained in the column,
+   *        or {@code null}, if column contains list elements itself
+   * @param type Static type of the values
+   */
+  Column(List<?> rows, Method getter, Class<?> type) {
+    this.rows = rows;
+    this.getter = getter;
+    this.type = wrap(type);
+    if (this.type == Long.class || this.type == Integer.class
+     || this.type == Short.class || this.type == Byte.class
+    ) {
+      kind = Kind.LONG;
+    } else
+    if (this.type == Double.class || this.type == Float.class) {
+      kind = Kind.DOUBLE;
+    } else
+    if (this.type == Boolean.class) {
+      kind = Kind.BOOLEAN;
+    } else {
+      kind = Kind.OBJECT;
+    }
+  }
+
+  /** Returns name of the field, represented by this column, or {@code null} for list elements. */
+  String getName() { return getter == null ? null : getter.getName(); }
+
+  /** Returns static type of the column values, with primitive types replaced by their wrappers. */
+  Class<?> getType() { return type; }
+
+  Kind getKind() { return kind; }
+
+  /** Returns {@code true}, if value in the specified row is {@code null}. */
+  boolean isNull(int row) {
+    load(row);
+    return kind == Kind.OBJECT ? objects[row] == null : nulls.get(row);
+  }
+
+  /**
+   * Returns integral value in the specified row. Applicable only to {@link Kind#LONG}
+   * and {@link Kind#BOOLEAN} columns.
+   */
+  long getLong(int row) {
+    load(row);
+    return longs[row];
+  }
+
+  /** Returns numeric value in the specified row. Applicable only to numeric columns. */
+  double getDouble(int row) {
+    load(row);
+    return kind == Kind.DOUBLE ? doubles[row] : longs[row];
+  }
+
+  /** Returns value in the specified row as an object of the {@link #getType} class. */
+  Object get(int row) {
+    load(row);
+    switch (kind) {
+      case LONG: {
+        if (nulls.get(row)) return null;
+        final long v = longs[row];
+        if (type == Integer.class) return (int)v;
+        if (type == Short.class) return (short)v;
+        if (type == Byte.class) return (byte)v;
+        return v;
+      }
+      case DOUBLE: {
+        if (nulls.get(row)) return null;
+        final double v = doubles[row];
+        return type == Float.class ? (Object)(float)v : (Object)v;
+      }
+      case BOOLEAN: return nulls.get(row) ? null : longs[row] != 0;
+      default: return objects[row];
+    }
+  }
+
+  /**
+   * Compares values in two rows. {@code null} values are less than any other values.
+   * Values that are not comparable are considered equal.
+   */
+  int compare(int row1, int row2) {
+    final boolean null1 = isNull(row1);
+    final boolean null2 = isNull(row2);
+    if (null1 || null2) {
+      return Boolean.compare(!null1, !null2);
+    }
+    switch (kind) {
+      case LONG:
+      case BOOLEAN: return Long.compare(longs[row1], longs[row2]);
+      case DOUBLE:  return Double.compare(doubles[row1], doubles[row2]);
+      default: {
+        final Object o1 = objects[row1];
+        final Object o2 = objects[row2];
+        if (o1 instanceof byte[] && o2 instanceof byte[]) {
+          return KaitaiStream.byteArrayCompare((byte[])o1, (byte[])o2);
+        }
+        if (o1 instanceof Comparable && o1.getClass() == o2.getClass()) {
+          return ((Comparable<Object>)o1).compareTo(o2);
+        }
+        return 0;
+      }
+    }
+  }
+
+  /**
+   * Returns statistics of the column values.
+   *
+   * @return Statistics of all non-{@code null} values or {@code null}, if column is not numeric
+   */
+  DoubleSummaryStatistics getStatistics() {
+    if (kind != Kind.LONG && kind != Kind.DOUBLE) {
+      return null;
+    }
+    loadAll();
+    final DoubleSummaryStatistics stat = new DoubleSummaryStatistics();
+    final int size = rows.size();
+    for (int i = 0; i < size; ++i) {
+      if (!nulls.get(i)) {
+        stat.accept(kind == Kind.DOUBLE ? doubles[i] : longs[i]);
+      }
+    }
+    return stat;
+  }
+
+  /**
+   * Returns permutation of the rows, that orders them by value of this column.
+   * Sort is stable. Large columns are sorted in parallel.
+   *
+   * @param ascending If {@code true}, smaller values go first
+   *
+   * @return Array of row indices in sorted order
+   */
+  int[] sort(boolean ascending) {
+    loadAll();
+    final int size = rows.size();
+    final int[] order = new int[size];
+    for (int i = 0; i < size; ++i) {
+      order[i] = i;
+    }
+    final int[] buffer = new int[size];
+    final int direction = ascending ? 1 : -1;
+    if (size > PARALLEL_THRESHOLD) {
+      // All values are extracted, so column is only read during sorting
+      ForkJoinPool.commonPool().invoke(new SortTask(order, buffer, 0, size, direction));
+    } else {
+      mergeSort(order, buffer, 0, size, direction);
+    }
+    return order;
+  }
+
+  /** Extracts values of all rows. */
+  void loadAll() {
+    final int size = rows.size();
+    for (int row = 0; row < size; row += BLOCK_SIZE) {
+      load(row);
+    }
+  }
+
+  /** Extracts values of the block, containing the specified row, if it is not yet extracted. */
+  private void load(int row) {
+    final int block = row / BLOCK_SIZE;
+    if (loaded.get(block)) {
+      return;
+    }
+    final int size = rows.size();
+    if (longs == null && doubles == null && objects == null) {
+      switch (kind) {
+        case LONG:
+        case BOOLEAN: longs   = new long[size];   break;
+        case DOUBLE:  doubles = new double[size]; break;
+        default:      objects = new Object[size]; break;
+      }
+    }
+    final int end = Math.min(size, (block + 1) * BLOCK_SIZE);
+    for (int i = block * BLOCK_SIZE; i < end; ++i) {
+      final Object value = value(rows.get(i));
+      switch (kind) {
+        case LONG: {
+          if (value == null) nulls.set(i); else longs[i] = ((Number)value).longValue();
+          break;
+        }
+        case DOUBLE: {
+          if (value == null) nulls.set(i); else doubles[i] = ((Number)value).doubleValue();
+          break;
+        }
+        case BOOLEAN: {
+          if (value == null) nulls.set(i); else longs[i] = (Boolean)value ? 1 : 0;
+          break;
+        }
+        default: objects[i] = value;
+      }
+    }
+    loaded.set(block);
+  }
+
+  private Object value(Object element) {
+    if (getter == null || element == null) {
+      return element;
+    }
+    try {
+      return getter.invoke(element);
+    } catch (InvocationTargetException ex) {
+      throw new UnsupportedOperationException("Can't get value of field " + getter.getName(), ex.getCause());
+    } catch (IllegalAccessException ex) {
+      throw new UnsupportedOperationException("Can't get value of field " + getter.getName(), ex);
+    }
+  }
+
+  /** Stable sort of {@code order[from, to)} by values of the rows. */
+  private void mergeSort(int[] order, int[] buffer, int from, int to, int direction) {
+    if (to - from < 2) {
+      return;
+    }
+    final int mid = (from + to) >>> 1;
+    mergeSort(order, buffer, from, mid, direction);
+    mergeSort(order, buffer, mid, to, direction);
+    merge(order, buffer, from, mid, to, direction);
+  }
+
+  /** Merges sorted {@code order[from, mid)} and {@code order[mid, to)}. */
+  private void merge(int[] order, int[] buffer, int from, int mid, int to, int direction) {
+    // Already ordered
+    if (direction * compare(order[mid - 1], order[mid]) <= 0) {
+      return;
+    }
+    System.arraycopy(order, from, buffer, from, to - from);
+    for (int i = from, l = from, r = mid; i < to; ++i) {
+      if (r >= to || (l < mid && direction * compare(buffer[l], buffer[r]) <= 0)) {
+        order[i] = buffer[l++];
+      } else {
+        order[i] = buffer[r++];
+      }
+    }
+  }
+
+  /** Task, that sorts halves of the range in parallel and then merges them. */
+  private final class SortTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final int[] order;
+    private final int[] buffer;
+    private final int from;
+    private final int to;
+    private final int direction;
+
+    SortTask(int[] order, int[] buffer, int from, int to, int direction) {
+      this.order = order;
+      this.buffer = buffer;
+      this.from = from;
+      this.to = to;
+      this.direction = direction;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= PARALLEL_THRESHOLD) {
+        mergeSort(order, buffer, from, to, direction);
+        return;
+      }
+      final int mid = (from + to) >>> 1;
+      invokeAll(
+        new SortTask(order, buffer, from, mid, direction),
+        new SortTask(order, buffer, mid, to, direction)
+      );
+      merge(order, buffer, from, mid, to, direction);
+    }
+  }
+
+  private static Class<?> wrap(Class<?> type) {
+    if (!type.isPrimitive()) return type;
+    if (type == long.class) return Long.class;
+    if (type == int.class) return Integer.class;
+    if (type == short.class) return Short.class;
+    if (type == byte.class) return Byte.class;
+    if (type == double.class) return Double.class;
+    if (type == float.class) return Float.class;
+    if (type == boolean.class) return Boolean.class;
+    if (type == char.class) return Character.class;
+    return type;
+  }
+}
@@ -23,11 +23,16 @@
  */
 package ru.mingun.kaitai.struct.tree;
 
+import java.lang.reflect.Method;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import static java.util.Collections.enumeration;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.Objects;
 import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreePath;
 import ru.mingun.kaitai.struct.Span;
 
 /**
@@ -37,16 +42,18 @@ import ru.mingun.kaitai.struct.Span;
  * @author Mingun
  */
 public class ListNode extends ChunkNode {
-  private final List<?> value;
+  private List<?> value;
   /** The type of elements of the {@code value}. */
   private final Class<?> elementClass;
 
-  /** Lazy populated list of child nodes. */
-  private List<ChunkNode> children;
-  /** Start positions in root stream of each value object in {@link #value}. */
-  private final List<Integer> arrStart;
-  /** Endo positions in root stream of each value object in {@link #value} (exclusive). */
-  private final List<Integer> arrEnd;
+  /** Lazy populated child nodes. Each node is created on first request. */
+  private ChunkNode[] children;
+  /** Number of already created nodes in {@link #children}. */
+  private int created;
+  /** Start positions in the parent struct stream of each value object in {@link #value}. */
+  private List<Integer> arrStart;
+  /** End positions in the parent struct stream of each value object in {@link #value} (exclusive). */
+  private List<Integer> arrEnd;
 
   ListNode(String name, List<?> value, Class<?> valueClass, StructNode parent,
     Span span,
@@ -67,15 +74,80 @@ public class ListNode extends ChunkNode {
   /** Returns a static class of the list elements; actual elements could be subclasses of this. */
   public Class<?> getElementClass() { return elementClass; }
 
+  /**
+   * Returns view of the list elements, ordered by the value of the specified field.
+   * Values of the field are extracted into primitive arrays, when possible, and
+   * sorted without creation of the child nodes; large lists are sorted in parallel.
+   * Sort is stable; {@code null} values are less than any other values; values
+   * that are not comparable (for example, structs) are considered equal.
+   *
+   * @param field Name of the field of the elements (the name of the getter), or
+   *        {@code null} to order by the elements itself
+   * @param ascending If {@code true}, elements with smaller values go first
+   *
+   * @return View of the list elements in the sorted order
+   *
+   * @throws ReflectiveOperationException If elements have no such field
+   */
+  public ListView sortedBy(String field, boolean ascending) throws ReflectiveOperationException {
+    final int[] order = column(field).sort(ascending);
+    return new ListView(name + " by " + (field == null ? "value" : field), this, null, order);
+  }
+
+  /**
+   * Returns groups of the list elements with equal values of the specified field.
+   * Groups are ordered by the value, elements in each group retain their order
+   * in the list. Values that are not comparable (for example, structs) are
+   * considered equal.
+   *
+   * @param field Name of the field of the elements (the name of the getter), or
+   *        {@code null} to group by the elements itself
+   *
+   * @return Views of the list elements, one for each distinct value
+   *
+   * @throws ReflectiveOperationException If elements have no such field
+   */
+  public List<ListView> groupedBy(String field) throws ReflectiveOperationException {
+    final Column column = column(field);
+    // Stable sort keeps the list order of elements with equal values
+    final int[] order = column.sort(true);
+    final List<ListView> groups = new ArrayList<>();
+    for (int start = 0; start < order.length;) {
+      int end = start + 1;
+      while (end < order.length && column.compare(order[start], order[end]) == 0) {
+        ++end;
+      }
+      final Object key = column.get(order[start]);
+      final int[] group = Arrays.copyOfRange(order, start, end);
+      groups.add(new ListView(String.valueOf(key), this, key, group));
+      start = end;
+    }
+    return groups;
+  }
+
   //<editor-fold defaultstate="collapsed" desc="TreeNode">
   @Override
-  public ChunkNode getChildAt(int childIndex) { return init().get(childIndex); }
+  public ChunkNode getChildAt(int childIndex) { return child(childIndex); }
 
   @Override
   public int getChildCount() { return value.size(); }
 
   @Override
-  public int getIndex(TreeNode node) { return init().indexOf(node); }
+  public int getIndex(TreeNode node) {
+    // Nodes are created only by this node, so not created node is not our child
+    if (!(node instanceof ValueNode) || node.getParent() != this || children == null) {
+      return -1;
+    }
+    // Elements are named by their index, see ValueNode#getName
+    final String name = ((ValueNode)node).getName();
+    final int index;
+    try {
+      index = Integer.parseInt(name.substring(1, name.length() - 1));
+    } catch (NumberFormatException ex) {
+      return -1;
+    }
+    return index < children.length && children[index] == node ? index : -1;
+  }
 
   @Override
   public boolean getAllowsChildren() { return true; }
@@ -87,6 +159,56 @@ public class ListNode extends ChunkNode {
   public Enumeration<? extends ChunkNode> children() { return enumeration(init()); }
   //</editor-fold>
 
+  //<editor-fold defaultstate="collapsed" desc="Reload">
+  @Override
+  boolean isCompatible(ChunkNode node) {
+    return node instanceof ListNode && ((ListNode)node).elementClass == elementClass;
+  }
+
+  @Override
+  boolean merge(ChunkNode node, TreePath path, StructModel model) {
+    final ListNode other = (ListNode)node;
+    final boolean changed = value.size() != other.value.size() || !Objects.equals(span, other.span);
+    // Removed nodes are announced to listeners, so create them from the old value
+    if (children != null) {
+      for (int i = other.value.size(); i < children.length; ++i) {
+        child(i);
+      }
+    }
+    this.value    = other.value;
+    this.arrStart = other.arrStart;
+    this.arrEnd   = other.arrEnd;
+    this.span     = other.span;
+    // Children, that are not created yet, are unknown to anyone, so only created
+    // children are merged. They could be requested not in order by views, such as
+    // ListView or JTree with a large model. Change of the element class makes
+    // lists incompatible, so such list is replaced by the parent node
+    if (children != null) {
+      final List<ChunkNode> old = Arrays.asList(children);
+      children = new ChunkNode[value.size()];
+      created  = 0;
+      mergeChildren(old, new AbstractList<ChunkNode>() {
+        @Override
+        public ChunkNode get(int index) { return child(index); }
+
+        @Override
+        public ChunkNode set(int index, ChunkNode node) {
+          final ChunkNode prev = children[index];
+          if (prev == null) {
+            ++created;
+          }
+          children[index] = node;
+          return prev;
+        }
+
+        @Override
+        public int size() { return children.length; }
+      }, path, model);
+    }
+    return changed;
+  }
+  //</editor-fold>
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder(name);
@@ -98,22 +220,40 @@ public class ListNode extends ChunkNode {
     return sb.append(']').toString();
   }
 
+  private Column column(String field) throws ReflectiveOperationException {
+    if (field == null) {
+      return new Column(value, null, elementClass);
+    }
+    final Method getter = elementClass.getMethod(field);
+    return new Column(value, getter, getter.getReturnType());
+  }
+
   private List<ChunkNode> init() {
+    for (int i = 0; i < value.size(); ++i) {
+      child(i);
+    }
+    return children == null ? Arrays.asList() : Arrays.asList(children);
+  }
+
+  private ChunkNode child(int index) {
     if (children == null) {
-      children = new ArrayList<>(value.size());
-      int index = 0;
-      for (final Object obj : value) {
-        try {
-          final int s = arrStart.get(index);
-          final int e = arrEnd.get(index);
-          final Span span = new Span(s, e);
-          children.add(create("[" + index + ']', obj, elementClass, span, isSequential));
-          ++index;
-        } catch (ReflectiveOperationException ex) {
-          throw new UnsupportedOperationException("Can't get list value at index " + index, ex);
-        }
+      children = new ChunkNode[value.size()];
+    }
+    ChunkNode child = children[index];
+    if (child == null) {
+      try {
+        final Object element = value.get(index);
+        final long base = ((StructNode)parent).offsetOf(element);
+        final int s = arrStart.get(index);
+        final int e = arrEnd.get(index);
+        final Span span = new Span(base + s, base + e);
+        child = create("[" + index + ']', element, elementClass, span, isSequential);
+      } catch (ReflectiveOperationException ex) {
+        throw new UnsupportedOperationException("Can't get list value at index " + index, ex);
       }
+      children[index] = child;
+      ++created;
     }
-    return children;
+    return child;
   }
 }
@@ -0,0 +1,140 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2022 Mingun.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ru.mingun.kaitai.struct.tree;
+
+import io.kaitai.struct.KaitaiStruct;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Model, that represents elements of a {@link ListNode} as a table: one row per
+ * element and one column per field from the {@code seq} section of the element type.
+ * If elements are not structs or their type is not known statically (for example,
+ * for lists of switch-typed elements), table has one column with elements itself.
+ * <p>
+ * Values are extracted directly from the parsed structures, without creation of
+ * the tree nodes, lazily in blocks of rows, when they are requested. Numeric
+ * columns are stored in primitive arrays.
+ * <p>
+ * Model represents the list at the moment of model creation. After
+ * {@link StructModel#reload} a new model should be created.
+ *
+ * @author Mingun
+ */
+public class ListTableModel extends AbstractTableModel {
+  private static final long serialVersionUID = 1L;
+
+  private final ListNode node;
+  /** Elements of the list. */
+  private final List<?> rows;
+  private final Column[] columns;
+
+  /**
+   * Creates read-only table model for the elements of the specified list.
+   *
+   * @param node List, which elements is represented by this model
+   *
+   * @throws ReflectiveOperationException If list of fields of the element class
+   *         can not be accessed
+   */
+  public ListTableModel(ListNode node) throws ReflectiveOperationException {
+    this.node = node;
+    this.rows = node.getValue();
+    final Class<?> elementClass = node.getElementClass();
+    if (KaitaiStruct.class.isAssignableFrom(elementClass) && hasFields(elementClass)) {
+      final List<Method> fields = new ArrayList<>();
+      StructNode.getters(elementClass, fields, new ArrayList<>());
+      this.columns = new Column[fields.size()];
+      for (int i = 0; i < columns.length; ++i) {
+        final Method getter = fields.get(i);
+        columns[i] = new Column(rows, getter, getter.getReturnType());
+      }
+    } else {
+      this.columns = new Column[] { new Column(rows, null, elementClass) };
+    }
+  }
+
+  /** Returns list, which elements is represented by this model. */
+  public ListNode getNode() { return node; }
+
+  /**
+   * Returns permutation of the rows, that orders them by value of the specified column.
+   * Sort is stable; {@code null} values are less than any other values; values
+   * that are not comparable (for example, structs) are considered equal.
+   *
+   * @param column Index of the column
+   * @param ascending If {@code true}, smaller values go first
+   *
+   * @return Array of row indices in sorted order
+   */
+  public int[] sort(int column, boolean ascending) {
+    return columns[column].sort(ascending);
+  }
+
+  /**
+   * Returns statistics of the values in the specified column.
+   *
+   * @param column Index of the column
+   * @return Statistics of all non-{@code null} values or {@code null}, if column is not numeric
+   */
+  public DoubleSummaryStatistics getStatistics(int column) {
+    return columns[column].getStatistics();
+  }
+
+  //<editor-fold defaultstate="collapsed" desc="TableModel">
+  @Override
+  public int getRowCount() { return rows.size(); }
+
+  @Override
+  public int getColumnCount() { return columns.length; }
+
+  @Override
+  public String getColumnName(int column) {
+    final String name = columns[column].getName();
+    return name == null ? node.getName() : name;
+  }
+
+  @Override
+  public Class<?> getColumnClass(int column) { return columns[column].getType(); }
+
+  @Override
+  public Object getValueAt(int row, int column) { return columns[column].get(row); }
+  //</editor-fold>
+
+  /**
+   * Checks, whether class has a list of the {@code seq} fields. Static type of
+   * elements of switch-typed lists is {@link KaitaiStruct} itself, which has no fields.
+   */
+  private static boolean hasFields(Class<?> clazz) {
+    try {
+      clazz.getField("_seqFields");
+      return true;
+    } catch (NoSuchFieldException ex) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2022 Mingun.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ru.mingun.kaitai.struct.tree;
+
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+import javax.swing.tree.TreeNode;
+
+/**
+ * Node, that represents elements of a {@link ListNode} in other order, or only part
+ * of them. Child nodes are the nodes of the list itself, so their parent is the
+ * list. They are created only when requested.
+ * <p>
+ * View is a root node: it has no parent. It is intended to be shown as a root
+ * of a separate model, for example:
+ * <pre>
+ * new JTree(new DefaultTreeModel(list.sortedBy("size", true)))
+ * </pre>
+ * Because parent of the child nodes is the list, paths to them should be taken
+ * from such model or tree instead of {@link javax.swing.tree.DefaultTreeModel#getPathToRoot}.
+ * Order of elements is fixed at creation of the view, so after reloading of
+ * the {@link StructModel} the view should be requested again.
+ *
+ * @author Mingun
+ * @see ListNode#sortedBy
+ * @see ListNode#groupedBy
+ */
+public class ListView implements TreeNode {
+  /** Displayed name of the view. */
+  private final String name;
+  /** List, which elements are represented. */
+  private final ListNode list;
+  /** Value of the field, by which elements are grouped, or {@code null} for sorted views. */
+  private final Object key;
+  /** Indices of the represented list elements in order of representation. */
+  private final int[] order;
+  /** Lazy calculated position in the {@link #order} of each list element, or {@code -1}. */
+  private int[] positions;
+
+  ListView(String name, ListNode list, Object key, int[] order) {
+    this.name  = name;
+    this.list  = list;
+    this.key   = key;
+    this.order = order;
+  }
+
+  /** Returns list, which elements is represented by this view. */
+  public ListNode getList() { return list; }
+
+  /**
+   * Returns value of the field, that all elements in this view share.
+   *
+   * @return Value of the field for the group views or {@code null} for the sorted views
+   */
+  public Object getKey() { return key; }
+
+  /**
+   * Returns index of the element in the list, represented by the child of this view.
+   *
+   * @param childIndex Index of the child of this view
+   * @return Index of the child in the list
+   */
+  public int getListIndex(int childIndex) { return order[childIndex]; }
+
+  //<editor-fold defaultstate="collapsed" desc="TreeNode">
+  @Override
+  public ChunkNode getChildAt(int childIndex) { return list.getChildAt(order[childIndex]); }
+
+  @Override
+  public int getChildCount() { return order.length; }
+
+  /** Returns {@code null}, because view is a root node; use {@link #getList} to get the list. */
+  @Override
+  public TreeNode getParent() { return null; }
+
+  @Override
+  public int getIndex(TreeNode node) {
+    final int index = list.getIndex(node);
+    if (index < 0) {
+      return -1;
+    }
+    if (positions == null) {
+      positions = new int[list.getChildCount()];
+      Arrays.fill(positions, -1);
+      for (int i = 0; i < order.length; ++i) {
+        positions[order[i]] = i;
+      }
+    }
+    return positions[index];
+  }
+
+  @Override
+  public boolean getAllowsChildren() { return true; }
+
+  @Override
+  public boolean isLeaf() { return order.length == 0; }
+
+  @Override
+  public Enumeration<ChunkNode> children() {
+    return new Enumeration<ChunkNode>() {
+      private int index;
+
+      @Override
+      public boolean hasMoreElements() { return index < order.length; }
+
+      @Override
+      public ChunkNode nextElement() {
+        if (index >= order.length) {
+          throw new NoSuchElementException();
+        }
+        return getChildAt(index++);
+      }
+    };
+  }
+  //</editor-fold>
+
+  @Override
+  public String toString() {
+    return name + " [count = " + order.length + ']';
+  }
+}
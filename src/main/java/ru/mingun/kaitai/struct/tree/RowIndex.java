@@ -0,0 +1,470 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2022 Mingun.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ru.mingun.kaitai.struct.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeExpansionListener;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreePath;
+
+/**
+ * Index of rows of the expanded part of a tree, flattened in pre-order: the root
+ * is row {@code 0} and each expanded node is followed by rows of its children.
+ * <p>
+ * For each expanded node index keeps a Fenwick tree over the number of rows,
+ * occupied by each child, in a primitive array. Expansion and collapsing update
+ * only these trees on the path to the root, and conversions between rows and
+ * nodes descend or ascend that path, so all operations take {@code O(d * log n)},
+ * where {@code d} is the depth of the node.
+ * <p>
+ * Index tracks expansion state itself; to follow a {@link javax.swing.JTree},
+ * register index as its {@link TreeExpansionListener}. Index listens to the model
+ * for structural changes. Like the model, index should be used only from the
+ * event dispatch thread.
+ * <p>
+ * Children of the nodes are requested only to show them; positions of the nodes
+ * are found by {@link TreeModel#getIndexOfChild}, so elements of a {@link ListNode}
+ * are not created to index them.
+ *
+ * @author Mingun
+ */
+public class RowIndex implements TreeExpansionListener, TreeModelListener {
+  private final TreeModel model;
+  /** Information about each node, which was expanded at least once. */
+  private final Map<Object, Entry> entries = new IdentityHashMap<>();
+  private Entry root;
+
+  /**
+   * Creates index of the rows of the specified model. Initially only the root
+   * node is expanded.
+   *
+   * @param model Model, which rows are indexed
+   */
+  public RowIndex(TreeModel model) {
+    this.model = model;
+    reset();
+    model.addTreeModelListener(this);
+  }
+
+  /** Stops listening for the model changes. */
+  public void dispose() {
+    model.removeTreeModelListener(this);
+  }
+
+  /** Returns number of visible rows, including the root. */
+  public int getRowCount() { return 1 + visible(root); }
+
+  /**
+   * Checks, whether the node at the end of the path is expanded.
+   *
+   * @param path Path to the node
+   * @return {@code true}, if node shows its children
+   */
+  public boolean isExpanded(TreePath path) {
+    final Entry entry = entries.get(path.getLastPathComponent());
+    return entry != null && entry.expanded;
+  }
+
+  /**
+   * Expands the node at the end of the path and all its ancestors.
+   *
+   * @param path Path to the node
+   */
+  public void expand(TreePath path) {
+    final TreePath parentPath = path.getParentPath();
+    Entry parent = null;
+    if (parentPath != null) {
+      expand(parentPath);
+      parent = entries.get(parentPath.getLastPathComponent());
+    }
+    final Object node = path.getLastPathComponent();
+    Entry entry = entries.get(node);
+    if (entry == null) {
+      if (parent == null || model.isLeaf(node)) {
+        return;
+      }
+      final int index = model.getIndexOfChild(parent.node, node);
+      if (index < 0) {
+        return;
+      }
+      entry = new Entry(node, parent, index, model.getChildCount(node));
+      entries.put(node, entry);
+      parent.children.add(entry);
+    }
+    if (!entry.expanded) {
+      entry.expanded = true;
+      propagate(entry, entry.total);
+    }
+  }
+
+  /**
+   * Collapses the node at the end of the path. Expansion state of the descendants
+   * is retained and restored, when node will be expanded again.
+   *
+   * @param path Path to the node
+   */
+  public void collapse(TreePath path) {
+    final Entry entry = entries.get(path.getLastPathComponent());
+    // Root can not be collapsed, it would have no rows
+    if (entry != null && entry.expanded && entry != root) {
+      propagate(entry, -entry.total);
+      entry.expanded = false;
+    }
+  }
+
+  //<editor-fold defaultstate="collapsed" desc="Queries">
+  /**
+   * Returns node, shown in the specified row.
+   *
+   * @param row Index of the row
+   * @return Node of the model
+   *
+   * @throws IndexOutOfBoundsException If {@code row} is not in range {@code [0; getRowCount())}
+   */
+  public Object getNodeForRow(int row) {
+    checkRow(row);
+    Object node = root.node;
+    Entry entry = root;
+    int offset = row - 1;
+    while (offset >= 0) {
+      final int index = entry.find(offset);
+      offset -= entry.prefix(index);
+      node = model.getChild(entry.node, index);
+      // Offset 0 is the child itself, other rows belong to its descendants
+      entry = entries.get(node);
+      --offset;
+    }
+    return node;
+  }
+
+  /**
+   * Returns path to the node, shown in the specified row.
+   *
+   * @param row Index of the row
+   * @return Path from the root of the model
+   *
+   * @throws IndexOutOfBoundsException If {@code row} is not in range {@code [0; getRowCount())}
+   */
+  public TreePath getPathForRow(int row) {
+    checkRow(row);
+    TreePath path = new TreePath(root.node);
+    Entry entry = root;
+    int offset = row - 1;
+    while (offset >= 0) {
+      final int index = entry.find(offset);
+      offset -= entry.prefix(index);
+      final Object node = model.getChild(entry.node, index);
+      path = path.pathByAddingChild(node);
+      entry = entries.get(node);
+      --offset;
+    }
+    return path;
+  }
+
+  /**
+   * Returns row, in which the node at the end of the path is shown.
+   *
+   * @param path Path from the root of the model
+   * @return Index of the row or {@code -1}, if node is not visible
+   */
+  public int getRowForPath(TreePath path) {
+    final Object[] nodes = path.getPath();
+    if (nodes[0] != root.node) {
+      return -1;
+    }
+    int row = 0;
+    for (int i = 1; i < nodes.length; ++i) {
+      final Entry parent = entries.get(nodes[i - 1]);
+      if (parent == null || !parent.expanded) {
+        return -1;
+      }
+      final int index = model.getIndexOfChild(parent.node, nodes[i]);
+      if (index < 0) {
+        return -1;
+      }
+      row += 1 + parent.prefix(index);
+    }
+    return row;
+  }
+
+  /**
+   * Returns row, in which the specified node is shown. Path to the node is
+   * restored by the {@link TreeNode#getParent} method.
+   *
+   * @param node Node of the model
+   * @return Index of the row or {@code -1}, if node is not visible
+   */
+  public int getRowForNode(TreeNode node) {
+    final List<Object> nodes = new ArrayList<>();
+    for (TreeNode n = node; n != null; n = n.getParent()) {
+      nodes.add(0, n);
+    }
+    return getRowForPath(new TreePath(nodes.toArray()));
+  }
+
+  /**
+   * Returns paths to the nodes, shown in the specified range of rows. Only the
+   * first row is searched, the following rows are enumerated by the walk in pre-order.
+   *
+   * @param start Index of the first row
+   * @param end Index of the row after the last (exclusive)
+   * @return Paths from the root of the model in order of rows
+   */
+  public List<TreePath> getPathsForRows(int start, int end) {
+    final int count = Math.min(end, getRowCount()) - start;
+    final List<TreePath> result = new ArrayList<>(Math.max(0, count));
+    if (count <= 0) {
+      return result;
+    }
+    TreePath path = getPathForRow(start);
+    result.add(path);
+    while (result.size() < count) {
+      final Object node = path.getLastPathComponent();
+      final Entry entry = entries.get(node);
+      if (entry != null && entry.expanded && entry.count > 0) {
+        path = path.pathByAddingChild(model.getChild(node, 0));
+      } else {
+        // Go to the next sibling of the nearest ancestor, which has it
+        while (true) {
+          final TreePath parentPath = path.getParentPath();
+          final Entry parent = entries.get(parentPath.getLastPathComponent());
+          final int index = model.getIndexOfChild(parent.node, path.getLastPathComponent()) + 1;
+          if (index < parent.count) {
+            path = parentPath.pathByAddingChild(model.getChild(parent.node, index));
+            break;
+          }
+          path = parentPath;
+        }
+      }
+      result.add(path);
+    }
+    return result;
+  }
+  //</editor-fold>
+
+  //<editor-fold defaultstate="collapsed" desc="TreeExpansionListener">
+  @Override
+  public void treeExpanded(TreeExpansionEvent event) { expand(event.getPath()); }
+
+  @Override
+  public void treeCollapsed(TreeExpansionEvent event) { collapse(event.getPath()); }
+  //</editor-fold>
+
+  //<editor-fold defaultstate="collapsed" desc="TreeModelListener">
+  @Override
+  public void treeNodesChanged(TreeModelEvent event) {
+    // Number of rows is not changed
+  }
+
+  @Override
+  public void treeNodesInserted(TreeModelEvent event) {
+    final Entry entry = entries.get(event.getTreePath().getLastPathComponent());
+    if (entry != null) {
+      rebuild(entry);
+    }
+  }
+
+  @Override
+  public void treeNodesRemoved(TreeModelEvent event) {
+    final Entry entry = entries.get(event.getTreePath().getLastPathComponent());
+    if (entry != null) {
+      for (final Object child : event.getChildren()) {
+        final Entry e = entries.get(child);
+        if (e != null && e.parent == entry) {
+          entry.children.remove(e);
+          remove(e);
+        }
+      }
+      rebuild(entry);
+    }
+  }
+
+  @Override
+  public void treeStructureChanged(TreeModelEvent event) {
+    final TreePath path = event.getTreePath();
+    // Root was replaced
+    if (path == null || model.getRoot() != root.node) {
+      reset();
+      return;
+    }
+    final Entry entry = entries.get(path.getLastPathComponent());
+    // Node, that was never expanded, occupies one row regardless of its children
+    if (entry != null) {
+      for (final Entry child : entry.children) {
+        remove(child);
+      }
+      entry.children.clear();
+      rebuild(entry);
+    }
+  }
+  //</editor-fold>
+
+  private void reset() {
+    entries.clear();
+    final Object node = model.getRoot();
+    root = new Entry(node, null, 0, node == null ? 0 : model.getChildCount(node));
+    root.expanded = true;
+    entries.put(node, root);
+  }
+
+  private void checkRow(int row) {
+    if (row < 0 || row >= getRowCount()) {
+      throw new IndexOutOfBoundsException("Row " + row + " is not in range [0; " + getRowCount() + ')');
+    }
+  }
+
+  /** Returns number of rows, occupied by descendants of the node, when it is visible. */
+  private static int visible(Entry entry) { return entry.expanded ? entry.total : 0; }
+
+  /**
+   * Adds {@code delta} to the number of rows of the node in all its ancestors,
+   * while they are expanded.
+   */
+  private static void propagate(Entry entry, int delta) {
+    for (Entry e = entry; e.parent != null && delta != 0; e = e.parent) {
+      e.parent.add(e.index, delta);
+      if (!e.parent.expanded) {
+        return;
+      }
+    }
+  }
+
+  /** Recalculates sizes of children of the node after changing of their number. */
+  private void rebuild(Entry entry) {
+    final int before = entry.total;
+    final int[] sizes = new int[model.getChildCount(entry.node)];
+    Arrays.fill(sizes, 1);
+    // Only children with entries can occupy more than one row, so other children
+    // are not requested
+    final Iterator<Entry> it = entry.children.iterator();
+    while (it.hasNext()) {
+      final Entry child = it.next();
+      final int index = model.getIndexOfChild(entry.node, child.node);
+      if (index < 0) {
+        it.remove();
+        remove(child);
+      } else {
+        child.index = index;
+        sizes[index] += visible(child);
+      }
+    }
+    entry.build(sizes);
+    if (entry.expanded) {
+      propagate(entry, entry.total - before);
+    }
+  }
+
+  /** Removes information about the node and all its descendants. */
+  private void remove(Entry entry) {
+    entries.remove(entry.node);
+    for (final Entry child : entry.children) {
+      remove(child);
+    }
+  }
+
+  /** Information about node, that was expanded at least once. */
+  private static final class Entry {
+    private final Object node;
+    private final Entry parent;
+    /** Index of the node in the parent node. */
+    private int index;
+    private boolean expanded;
+    /** Number of children of the node. */
+    private int count;
+    /**
+     * Fenwick tree over the number of rows, occupied by each child with its
+     * visible descendants. Element {@code 0} is unused.
+     */
+    private int[] tree;
+    /** Number of rows, occupied by descendants, when node is expanded. */
+    private int total;
+    /** Entries of the child nodes, that were expanded at least once. */
+    private final List<Entry> children = new ArrayList<>();
+
+    Entry(Object node, Entry parent, int index, int count) {
+      this.node = node;
+      this.parent = parent;
+      this.index = index;
+      this.count = count;
+      // Initially each child occupies one row
+      this.tree = new int[count + 1];
+      for (int i = 1; i <= count; ++i) {
+        tree[i] = i & -i;
+      }
+      this.total = count;
+    }
+
+    void build(int[] sizes) {
+      count = sizes.length;
+      tree = new int[count + 1];
+      total = 0;
+      for (int i = 1; i <= count; ++i) {
+        tree[i] += sizes[i - 1];
+        total += sizes[i - 1];
+        final int j = i + (i & -i);
+        if (j <= count) {
+          tree[j] += tree[i];
+        }
+      }
+    }
+
+    /** Returns number of rows, occupied by children before the child {@code i}. */
+    int prefix(int i) {
+      int sum = 0;
+      for (; i > 0; i -= i & -i) {
+        sum += tree[i];
+      }
+      return sum;
+    }
+
+    void add(int i, int delta) {
+      total += delta;
+      for (++i; i <= count; i += i & -i) {
+        tree[i] += delta;
+      }
+    }
+
+    /** Returns index of the child, which rows include row {@code offset} after this node. */
+    int find(int offset) {
+      int pos = 0;
+      for (int step = Integer.highestOneBit(Math.max(count, 1)); step > 0; step >>= 1) {
+        final int next = pos + step;
+        if (next <= count && tree[next] <= offset) {
+          pos = next;
+          offset -= tree[next];
+        }
+      }
+      return pos;
+    }
+  }
+}
@@ -25,7 +25,9 @@ package ru.mingun.kaitai.struct.tree;
 
 import static java.util.Collections.emptyEnumeration;
 import java.util.Enumeration;
+import java.util.Objects;
 import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreePath;
 import ru.mingun.kaitai.struct.Span;
 
 /**
@@ -36,7 +38,7 @@ import ru.mingun.kaitai.struct.Span;
  */
 public class SimpleNode extends ChunkNode {
   /** Parsed value of non-constructed type. */
-  private final Object value;
+  private Object value;
 
   /** Static type of {@code value}, to identify the type when value is null. */
   private final Class<?> valueClass;
@@ -75,6 +77,22 @@ public class SimpleNode extends ChunkNode {
   public Enumeration<? extends ChunkNode> children() { return emptyEnumeration(); }
   //</editor-fold>
 
+  //<editor-fold defaultstate="collapsed" desc="Reload">
+  @Override
+  boolean isCompatible(ChunkNode node) {
+    return node instanceof SimpleNode && ((SimpleNode)node).valueClass == valueClass;
+  }
+
+  @Override
+  boolean merge(ChunkNode node, TreePath path, StructModel model) {
+    final SimpleNode other = (SimpleNode)node;
+    final boolean changed = !Objects.deepEquals(value, other.value) || !Objects.equals(span, other.span);
+    this.value = other.value;
+    this.span  = other.span;
+    return changed;
+  }
+  //</editor-fold>
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder(name);
@@ -25,6 +25,7 @@ package ru.mingun.kaitai.struct.tree;
 
 import io.kaitai.struct.KaitaiStruct;
 import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
 import javax.swing.event.TreeModelListener;
 import javax.swing.tree.TreeModel;
 import javax.swing.tree.TreeNode;
@@ -36,7 +37,7 @@ import javax.swing.tree.TreePath;
  * @author Mingun
  */
 public class StructModel implements TreeModel {
-  private final StructNode root;
+  private StructNode root;
   private final EventListenerList listeners = new EventListenerList();
 
   /**
@@ -64,6 +65,49 @@ public class StructModel implements TreeModel {
     this.root = new StructNode(name, value, null);
   }
 
+  /**
+   * Replaces represented structure with the new one, usually obtained by reparsing
+   * of the changed stream. New structure is compared with the current one and only
+   * changed nodes are replaced; listeners are notified only about real changes.
+   * All nodes, that are still presented in the new structure, are preserved, so
+   * views retain their expansion and selection state.
+   * <p>
+   * Only nodes, that was already requested by clients, are compared, so cost of
+   * reload is proportional to the explored part of the tree.
+   * <p>
+   * Like any other modification of the Swing models, this method should be called
+   * from the event dispatch thread.
+   *
+   * @param value the new root structure
+   *
+   * @throws ReflectiveOperationException If kaitai class was genereted without
+   *         debug info (which includes position information)
+   *
+   * @see StructModelWatcher
+   */
+  public void reload(KaitaiStruct value) throws ReflectiveOperationException {
+    final StructNode fresh = new StructNode(root.getName(), value, null);
+    if (root.isCompatible(fresh)) {
+      final TreePath path = new TreePath(root);
+      if (root.merge(fresh, path, this)) {
+        fireTreeNodesChanged(path, null, null);
+      }
+    } else {
+      root = fresh;
+      fireTreeStructureChanged(new TreePath(root));
+    }
+  }
+
+  /**
+   * Starts building of the index of field names and values of the current structure
+   * in the background thread. Index allows to find nodes without walking over the tree.
+   *
+   * @return Index, which is filled in the background
+   */
+  public ValueIndex createIndex() {
+    return new ValueIndex(this);
+  }
+
   //<editor-fold defaultstate="collapsed" desc="TreeModel">
   @Override
   public StructNode getRoot() { return root; }
@@ -100,13 +144,8 @@ public class StructModel implements TreeModel {
   @Override
   public int getIndexOfChild(Object parent, Object child) {
     if (parent instanceof TreeNode && child instanceof TreeNode) {
-      final TreeNode nodeParent = (TreeNode)parent;
-      for (int i = 0; i < nodeParent.getChildCount(); i++) {
-        final TreeNode nodeChild = nodeParent.getChildAt(i);
-        if (nodeChild == child) {
-          return i;
-        }
-      }
+      // Nodes find their children without creating of the other children
+      return ((TreeNode)parent).getIndex((TreeNode)child);
     }
     return -1;
   }
@@ -121,4 +160,55 @@ public class StructModel implements TreeModel {
     listeners.remove(TreeModelListener.class, l);
   }
   //</editor-fold>
+
+  //<editor-fold defaultstate="collapsed" desc="Events">
+  void fireTreeNodesChanged(TreePath path, int[] indices, Object[] children) {
+    if (indices != null && indices.length == 0) {
+      return;
+    }
+    TreeModelEvent event = null;
+    for (final TreeModelListener l : listeners.getListeners(TreeModelListener.class)) {
+      if (event == null) {
+        event = new TreeModelEvent(this, path, indices, children);
+      }
+      l.treeNodesChanged(event);
+    }
+  }
+
+  void fireTreeNodesInserted(TreePath path, int[] indices, Object[] children) {
+    if (indices.length == 0) {
+      return;
+    }
+    TreeModelEvent event = null;
+    for (final TreeModelListener l : listeners.getListeners(TreeModelListener.class)) {
+      if (event == null) {
+        event = new TreeModelEvent(this, path, indices, children);
+      }
+      l.treeNodesInserted(event);
+    }
+  }
+
+  void fireTreeNodesRemoved(TreePath path, int[] indices, Object[] children) {
+    if (indices.length == 0) {
+      return;
+    }
+    TreeModelEvent event = null;
+    for (final TreeModelListener l : listeners.getListeners(TreeModelListener.class)) {
+      if (event == null) {
+        event = new TreeModelEvent(this, path, indices, children);
+      }
+      l.treeNodesRemoved(event);
+    }
+  }
+
+  void fireTreeStructureChanged(TreePath path) {
+    TreeModelEvent event = null;
+    for (final TreeModelListener l : listeners.getListeners(TreeModelListener.class)) {
+      if (event == null) {
+        event = new TreeModelEvent(this, path);
+      }
+      l.treeStructureChanged(event);
+    }
+  }
+  //</editor-fold>
 }
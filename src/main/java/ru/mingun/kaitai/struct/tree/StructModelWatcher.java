@@ -0,0 +1,146 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2022 Mingun.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ru.mingun.kaitai.struct.tree;
+
+import io.kaitai.struct.KaitaiStruct;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import javax.swing.SwingUtilities;
+
+/**
+ * Watches the file, from which {@link StructModel} was parsed, and reloads model
+ * each time when file is changed. Useful for inspecting growing files, such as logs
+ * or captures.
+ * <p>
+ * File is reparsed in the background thread and then {@link StructModel#reload}
+ * is called in the event dispatch thread.
+ *
+ * @author Mingun
+ */
+public class StructModelWatcher implements Closeable {
+  /** Parser of the watched file, usually the {@code fromFile} method of the generated class. */
+  @FunctionalInterface
+  public interface Parser {
+    /**
+     * Parses the specified file.
+     *
+     * @param file File to parse
+     * @return The root structure of the file
+     *
+     * @throws IOException If file can not be read
+     */
+    KaitaiStruct parse(Path file) throws IOException;
+  }
+
+  private final StructModel model;
+  /** Watched file. */
+  private final Path file;
+  private final Parser parser;
+  private final WatchService service;
+  private final Thread thread;
+
+  /**
+   * Starts watching for changes in the specified file.
+   *
+   * @param model Model to reload when file is changed
+   * @param file File to watch
+   * @param parser Parser of the file, for example {@code path -> Format.fromFile(path.toString())}
+   *
+   * @throws IOException If file system does not support watching of the file
+   */
+  public StructModelWatcher(StructModel model, Path file, Parser parser) throws IOException {
+    this.model  = model;
+    this.file   = file.toAbsolutePath();
+    this.parser = parser;
+    this.service = file.getFileSystem().newWatchService();
+    try {
+      // WatchService can watch only directories
+      this.file.getParent().register(service, ENTRY_CREATE, ENTRY_MODIFY);
+    } catch (IOException | RuntimeException ex) {
+      service.close();
+      throw ex;
+    }
+    this.thread = new Thread(this::run, "Watcher for " + this.file);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /** Returns watched file. */
+  public Path getFile() { return file; }
+
+  /** Stops watching for changes. */
+  @Override
+  public void close() throws IOException {
+    service.close();
+  }
+
+  private void run() {
+    final Path name = file.getFileName();
+    try {
+      while (true) {
+        final WatchKey key = service.take();
+        // Single write usually produces several events, reload only once for them
+        boolean changed = false;
+        for (final WatchEvent<?> event : key.pollEvents()) {
+          changed |= event.kind() == OVERFLOW || name.equals(event.context());
+        }
+        if (changed) {
+          reload();
+        }
+        if (!key.reset()) {
+          // Directory is no longer accessible
+          return;
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException ex) {
+      // Watcher is closed
+    }
+  }
+
+  private void reload() {
+    final KaitaiStruct value;
+    try {
+      value = parser.parse(file);
+    } catch (IOException | RuntimeException ex) {
+      // File could be in an inconsistent state while it is written; the next
+      // modification will trigger reload again
+      return;
+    }
+    SwingUtilities.invokeLater(() -> {
+      try {
+        model.reload(value);
+      } catch (ReflectiveOperationException ex) {
+        throw new UnsupportedOperationException(ex);
+      }
+    });
+  }
+}
@@ -23,6 +23,7 @@
  */
 package ru.mingun.kaitai.struct.tree;
 
+import io.kaitai.struct.KaitaiStream;
 import io.kaitai.struct.KaitaiStruct;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -34,7 +35,9 @@ import static java.util.Collections.enumeration;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreePath;
 import ru.mingun.kaitai.struct.Span;
 
 /**
@@ -44,7 +47,7 @@ import ru.mingun.kaitai.struct.Span;
  * @author Mingun
  */
 public class StructNode extends ChunkNode {
-  private final KaitaiStruct value;
+  private KaitaiStruct value;
   /** Array of getters of fields for stored fields. */
   private final ArrayList<Method> fields;
   /** Array of getters of fields for parameters and instances. */
@@ -52,10 +55,12 @@ public class StructNode extends ChunkNode {
   /** Lazy populated list of child nodes. */
   private ArrayList<ChunkNode> children;
 
-  private final Map<String, Integer> attrStart;
-  private final Map<String, Integer> attrEnd;
-  private final Map<String, ? extends List<Integer>> arrStart;
-  private final Map<String, ? extends List<Integer>> arrEnd;
+  private Map<String, Integer> attrStart;
+  private Map<String, Integer> attrEnd;
+  private Map<String, ? extends List<Integer>> arrStart;
+  private Map<String, ? extends List<Integer>> arrEnd;
+  /** Offset of the {@code value._io()} in the root stream. */
+  private long streamOffset;
 
   /**
    * Constructor used to create node for representing root structure.
@@ -73,35 +78,14 @@ public class StructNode extends ChunkNode {
   StructNode(String name, KaitaiStruct value, TreeNode parent, Span span, boolean isSequential) throws ReflectiveOperationException {
     super(name, parent, span, isSequential);
     final Class<?> clazz = value.getClass();
-    // getDeclaredMethods() doesn't guaranties any particular order, so sort fields
-    // according order in the type
-    final String[] names = (String[])clazz.getField("_seqFields").get(null);
-    final List<String> order = Arrays.asList(names);
 
     this.instances = new ArrayList<>();
     this.fields = new ArrayList<>();
-    for (final Method m : clazz.getDeclaredMethods()) {
-      // Skip static methods, i.e. "fromFile"
-      // Skip all internal methods, i.e. "_io", "_parent", "_root"
-      if (Modifier.isStatic(m.getModifiers()) || m.getName().charAt(0) == '_') {
-        continue;
-      }
-      if (order.contains(m.getName())) {
-        fields.add(m);
-      } else {
-        // TODO: Distinguish between parameters and instances
-        instances.add(m);
-      }
-    }
-
-    fields.sort((Method m1, Method m2) -> {
-      final int pos1 = order.indexOf(m1.getName());
-      final int pos2 = order.indexOf(m2.getName());
-      return pos1 - pos2;
-    });
+    getters(clazz, fields, instances);
 
     this.value     = value;
     this.children  = null;
+    this.streamOffset = streamOffset(value, parent, span);
     this.attrStart = (Map<String, Integer>)clazz.getDeclaredField("_attrStart").get(value);
     this.attrEnd   = (Map<String, Integer>)clazz.getDeclaredField("_attrEnd").get(value);
     this.arrStart  = (Map<String, ? extends List<Integer>>)clazz.getDeclaredField("_arrStart").get(value);
@@ -111,6 +95,75 @@ public class StructNode extends ChunkNode {
   @Override
   public KaitaiStruct getValue() { return value; }
 
+  /**
+   * Returns offset of the stream of this struct in the root stream. Structs,
+   * which have a size, are read from a separate substream, and positions in the
+   * debug information are relative to that substream. Spans of the child nodes
+   * already include this offset.
+   * <p>
+   * Note, that content of processed substreams (for example, decompressed data)
+   * is not a part of the root stream, so for them offset points to the region
+   * with the raw data and spans of the child nodes are not precise.
+   * <p>
+   * Instances with an explicit {@code io} (for example, {@code io: _root._io})
+   * record their positions in the stream of another struct. For struct values
+   * this is detected by their stream, but spans of the other instances with an
+   * explicit {@code io} are calculated as if they were read from the stream of
+   * this struct.
+   *
+   * @return Byte offset from the begin of a root stream
+   */
+  public long getStreamOffset() { return streamOffset; }
+
+  @Override
+  StructNode owner() {
+    // Struct, read from the stream of an ancestor (as in instances with an explicit
+    // `io`), has positions in that stream
+    final StructNode ancestor = ancestor(value._io());
+    if (ancestor != null) {
+      return ancestor;
+    }
+    final StructNode owner = super.owner();
+    // Span of the root struct is calculated in its own stream
+    return owner == null ? this : owner;
+  }
+
+  /**
+   * Returns offset in the root stream of the stream, in which positions of the
+   * specified field value are recorded.
+   *
+   * @param field Value of a field of this struct
+   * @return Byte offset from the begin of a root stream
+   */
+  long offsetOf(Object field) {
+    if (field instanceof KaitaiStruct) {
+      final KaitaiStream io = ((KaitaiStruct)field)._io();
+      if (io != value._io()) {
+        final StructNode ancestor = ancestor(io);
+        // Otherwise this is a substream, which position is recorded in our stream
+        if (ancestor != null) {
+          return ancestor.streamOffset;
+        }
+      }
+    }
+    return streamOffset;
+  }
+
+  /**
+   * Searches the nearest ancestor struct, that reads from the specified stream.
+   *
+   * @param io Stream to search
+   * @return Ancestor struct node or {@code null}, if there is no such ancestor
+   */
+  private StructNode ancestor(KaitaiStream io) {
+    for (TreeNode node = parent; node != null; node = node.getParent()) {
+      if (node instanceof StructNode && ((StructNode)node).value._io() == io) {
+        return (StructNode)node;
+      }
+    }
+    return null;
+  }
+
   //<editor-fold defaultstate="collapsed" desc="TreeNode">
   @Override
   public TreeNode getChildAt(int childIndex) { return init().get(childIndex); }
@@ -137,6 +190,34 @@ public class StructNode extends ChunkNode {
   public Enumeration<? extends TreeNode> children() { return enumeration(init()); }
   //</editor-fold>
 
+  //<editor-fold defaultstate="collapsed" desc="Reload">
+  @Override
+  boolean isCompatible(ChunkNode node) {
+    // The set of fields is determined by the class
+    return node instanceof StructNode && ((StructNode)node).value.getClass() == value.getClass();
+  }
+
+  @Override
+  boolean merge(ChunkNode node, TreePath path, StructModel model) {
+    final StructNode other = (StructNode)node;
+    final boolean changed = !Objects.equals(span, other.span);
+    this.value     = other.value;
+    this.attrStart = other.attrStart;
+    this.attrEnd   = other.attrEnd;
+    this.arrStart  = other.arrStart;
+    this.arrEnd    = other.arrEnd;
+    this.span      = other.span;
+    this.streamOffset = other.streamOffset;
+    // Children never requested, so nobody knows about them
+    if (children != null) {
+      final ArrayList<ChunkNode> old = children;
+      children = null;
+      mergeChildren(old, init(), path, model);
+    }
+    return changed;
+  }
+  //</editor-fold>
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder(name);
@@ -167,7 +248,8 @@ public class StructNode extends ChunkNode {
     final Integer e = attrEnd.get(name);
     final boolean isPresent = s != null && e != null;
 
-    final Span span = isPresent ? new Span(s, e) : null;
+    final long base = offsetOf(field);
+    final Span span = isPresent ? new Span(base + s, base + e) : null;
     // isPresent filters out "value" instances with List content
     if (isPresent && List.class.isAssignableFrom(getter.getReturnType())) {
       final List<Integer> sa = arrStart.get(name);
@@ -183,6 +265,69 @@ public class StructNode extends ChunkNode {
     return create(name, field, getter.getReturnType(), span, isSequential);
   }
 
+  /**
+   * Collects getters of the fields of the specified generated class.
+   *
+   * @param clazz Class, generated by KaitaiStruct
+   * @param fields List, that receives getters of fields, stored in the stream,
+   *        in order of declaration
+   * @param instances List, that receives getters of parameters and instances
+   *
+   * @throws ReflectiveOperationException If kaitai class was genereted without
+   *         debug info (which includes list of fields)
+   */
+  static void getters(Class<?> clazz, List<Method> fields, List<Method> instances) throws ReflectiveOperationException {
+    // getDeclaredMethods() doesn't guaranties any particular order, so sort fields
+    // according order in the type
+    final String[] names = (String[])clazz.getField("_seqFields").get(null);
+    final List<String> order = Arrays.asList(names);
+
+    for (final Method m : clazz.getDeclaredMethods()) {
+      // Skip static methods, i.e. "fromFile"
+      // Skip all internal methods, i.e. "_io", "_parent", "_root"
+      if (Modifier.isStatic(m.getModifiers()) || m.getName().charAt(0) == '_') {
+        continue;
+      }
+      if (order.contains(m.getName())) {
+        fields.add(m);
+      } else {
+        // TODO: Distinguish between parameters and instances
+        instances.add(m);
+      }
+    }
+
+    fields.sort((Method m1, Method m2) -> {
+      final int pos1 = order.indexOf(m1.getName());
+      final int pos2 = order.indexOf(m2.getName());
+      return pos1 - pos2;
+    });
+  }
+
+  /**
+   * Calculates offset of the stream of the struct in the root stream.
+   *
+   * @param value Struct for which offset is calculated
+   * @param parent Parent node of the struct node
+   * @param span Absolute position of the struct in the root stream
+   *
+   * @return Byte offset from the begin of a root stream
+   */
+  private static long streamOffset(KaitaiStruct value, TreeNode parent, Span span) {
+    final KaitaiStream io = value._io();
+    // Struct could be read from the stream of any of its ancestors (including
+    // references to the ancestors in "value" instances)
+    for (TreeNode node = parent; node != null; node = node.getParent()) {
+      if (node instanceof StructNode) {
+        final StructNode struct = (StructNode)node;
+        if (struct.value._io() == io) {
+          return struct.streamOffset;
+        }
+      }
+    }
+    // Otherwise struct has its own substream, which starts at its position
+    return span == null ? 0 : span.getStart();
+  }
+
   private ArrayList<ChunkNode> init() {
     if (children == null) {
       children = new ArrayList<>();
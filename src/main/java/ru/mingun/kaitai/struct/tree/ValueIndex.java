@@ -0,0 +1,519 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2022 Mingun.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ru.mingun.kaitai.struct.tree;
+
+import io.kaitai.struct.KaitaiStruct;
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreePath;
+
+/**
+ * Index of field names and values of the structure, represented by {@link StructModel}.
+ * Index is built in the background thread directly from the parsed structures,
+ * without creation of the tree nodes. Searches are possible while index is built;
+ * they return nodes, indexed so far.
+ * <p>
+ * Each indexed node is identified by a non-negative integer identifier, which
+ * can be converted to a path in the model by {@link #getPath}. Only fields from
+ * the {@code seq} sections are indexed, because reading of instances could
+ * require parsing, which can not be done concurrently with the event dispatch thread.
+ * <p>
+ * Index represents the structure at the moment of index creation. After
+ * {@link StructModel#reload} a new index should be created.
+ *
+ * @author Mingun
+ * @see StructModel#createIndex
+ */
+public class ValueIndex implements Closeable {
+  /** Length of n-grams of strings and byte arrays. */
+  private static final int GRAM = 3;
+  /**
+   * Values longer than this are not split into n-grams, because that gives too many
+   * keys; instead, they are always checked on searching.
+   */
+  private static final int MAX_GRAMMED_LENGTH = 4096;
+
+  private final StructModel model;
+  /** Structure, for which index is built. */
+  private final KaitaiStruct root;
+  private final Thread thread;
+  /** Getters of the sequence fields of each indexed class. Used only by the indexing thread. */
+  private final Map<Class<?>, List<Method>> getters = new HashMap<>();
+
+  //<editor-fold defaultstate="collapsed" desc="Storage">
+  // All fields in this section are guarded by this
+
+  /** Number of registered nodes. */
+  private int count;
+  /** Identifier of the parent node for each node, {@code -1} for the root. */
+  private int[] parents = new int[1024];
+  /** Index of each node in its parent node. */
+  private int[] indices = new int[1024];
+  /** Values of the leaf nodes, {@code null} for structs and lists. */
+  private Object[] values = new Object[1024];
+
+  /** Identifiers of nodes by a lower-cased field name. */
+  private final Map<String, IntList> names = new HashMap<>();
+  /** Identifiers of leaf nodes by a normalized value, see {@link #normalize}. */
+  private final Map<Object, IntList> exact = new HashMap<>();
+  /** Identifiers of strings by n-grams of their lower-cased content. */
+  private final Map<Long, IntList> textGrams = new HashMap<>();
+  /** Identifiers of byte arrays by n-grams of their content. */
+  private final Map<Integer, IntList> byteGrams = new HashMap<>();
+  /** Identifiers of all strings. */
+  private final IntList texts = new IntList();
+  /** Identifiers of all byte arrays. */
+  private final IntList blobs = new IntList();
+  /** Identifiers of strings, that are too short or too long to be split into n-grams. */
+  private final IntList ungrammedTexts = new IntList();
+  /** Identifiers of byte arrays, that are too short or too long to be split into n-grams. */
+  private final IntList ungrammedBytes = new IntList();
+  /** Approximate size of posting lists and maps in bytes. */
+  private long postingsSize;
+  //</editor-fold>
+
+  /** Estimated share of the structure, that is already indexed, in range {@code [0; 1]}. */
+  private volatile double progress;
+  private volatile boolean complete;
+  private volatile boolean closed;
+  /** Error, that stops indexing, or {@code null}. */
+  private volatile Throwable error;
+
+  /**
+   * Starts building of the index of the current structure of the specified model.
+   *
+   * @param model Model to index
+   */
+  ValueIndex(StructModel model) {
+    this.model = model;
+    this.root = model.getRoot().getValue();
+    this.thread = new Thread(this::run, "Index of " + model.getRoot().getName());
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    thread.start();
+  }
+
+  /** Returns estimated share of the indexed structure, in range {@code [0; 1]}. */
+  public double getProgress() { return progress; }
+
+  /** Returns {@code true}, if all fields are indexed. */
+  public boolean isComplete() { return complete; }
+
+  /**
+   * Returns error, that stops building of index, for example, because class
+   * generated without debug info.
+   *
+   * @return Error or {@code null}, if there is no error
+   */
+  public Throwable getError() { return error; }
+
+  /** Returns number of the indexed nodes. */
+  public synchronized int getNodeCount() { return count; }
+
+  /**
+   * Returns approximate number of bytes, used by index. Indexed values itself
+   * are shared with the structure and are not counted.
+   *
+   * @return Size of the index in bytes
+   */
+  public synchronized long getMemoryUsage() {
+    // parents, indices and values (compressed references)
+    return (long)parents.length * (4 + 4 + 4) + postingsSize;
+  }
+
+  /** Stops building of the index, if it is not yet completed. */
+  @Override
+  public void close() {
+    closed = true;
+  }
+
+  //<editor-fold defaultstate="collapsed" desc="Search">
+  /**
+   * Finds nodes with the specified field name. Search is case-insensitive.
+   * Elements of lists have names in form {@code "[<index>]"} and are not indexed.
+   *
+   * @param name Name of the field
+   * @return Identifiers of the found nodes in ascending order
+   */
+  public synchronized int[] findName(String name) {
+    return toArray(names.get(name.toLowerCase(Locale.ROOT)));
+  }
+
+  /**
+   * Finds leaf nodes with the specified value. Integral numbers are equal if they
+   * have the same numeric value, regardless of their type. Strings and enumeration
+   * constants are compared case-insensitive, so string can be used to search enums.
+   *
+   * @param value Value to search
+   * @return Identifiers of the found nodes in ascending order
+   */
+  public synchronized int[] findValue(Object value) {
+    return toArray(exact.get(normalize(value)));
+  }
+
+  /**
+   * Finds string nodes, which contain the specified text. Search is case-insensitive.
+   *
+   * @param text Text to search
+   * @return Identifiers of the found nodes in ascending order
+   */
+  public synchronized int[] findText(String text) {
+    final String needle = text.toLowerCase(Locale.ROOT);
+    // Short text could be anywhere, so check all strings
+    IntList candidates = texts;
+    IntList rest = null;
+    if (needle.length() >= GRAM) {
+      candidates = null;
+      for (int i = 0; i + GRAM <= needle.length(); ++i) {
+        candidates = intersect(candidates, textGrams.get(textGram(needle, i)));
+      }
+      rest = ungrammedTexts;
+    }
+    final IntList result = new IntList();
+    for (final IntList list : new IntList[] { candidates, rest }) {
+      for (int i = 0; list != null && i < list.size; ++i) {
+        final int id = list.data[i];
+        if (((String)values[id]).toLowerCase(Locale.ROOT).contains(needle)) {
+          result.add(id);
+        }
+      }
+    }
+    return sorted(result);
+  }
+
+  /**
+   * Finds byte array nodes, which contain the specified byte sequence.
+   *
+   * @param pattern Bytes to search
+   * @return Identifiers of the found nodes in ascending order
+   */
+  public synchronized int[] findBytes(byte[] pattern) {
+    // Short pattern could be anywhere, so check all byte arrays
+    IntList candidates = blobs;
+    IntList rest = null;
+    if (pattern.length >= GRAM) {
+      candidates = null;
+      for (int i = 0; i + GRAM <= pattern.length; ++i) {
+        candidates = intersect(candidates, byteGrams.get(byteGram(pattern, i)));
+      }
+      rest = ungrammedBytes;
+    }
+    final IntList result = new IntList();
+    for (final IntList list : new IntList[] { candidates, rest }) {
+      for (int i = 0; list != null && i < list.size; ++i) {
+        final int id = list.data[i];
+        if (contains((byte[])values[id], pattern)) {
+          result.add(id);
+        }
+      }
+    }
+    return sorted(result);
+  }
+
+  /**
+   * Returns path to the node with specified identifier. Nodes in the path are
+   * created, if they are not yet created. Like other methods of the model, this
+   * method should be called from the event dispatch thread.
+   *
+   * @param id Identifier of the node, returned by one of the {@code find*} methods
+   * @return Path from the root of the model to the node
+   *
+   * @throws IllegalStateException If model was reloaded after creation of the index
+   */
+  public TreePath getPath(int id) {
+    final StructNode top = model.getRoot();
+    if (top.getValue() != root) {
+      throw new IllegalStateException("Model was reloaded, index is outdated");
+    }
+    final IntList path = new IntList();
+    synchronized (this) {
+      if (id < 0 || id >= count) {
+        throw new IndexOutOfBoundsException("Node " + id + " is not indexed (count = " + count + ")");
+      }
+      for (int i = id; parents[i] >= 0; i = parents[i]) {
+        path.add(indices[i]);
+      }
+    }
+    final Object[] nodes = new Object[path.size + 1];
+    TreeNode node = top;
+    nodes[0] = node;
+    for (int i = path.size - 1, j = 1; i >= 0; --i, ++j) {
+      node = node.getChildAt(path.data[i]);
+      nodes[j] = node;
+    }
+    return new TreePath(nodes);
+  }
+  //</editor-fold>
+
+  //<editor-fold defaultstate="collapsed" desc="Building">
+  private void run() {
+    try {
+      index(root, add(-1, 0, null, null), 0, 1);
+      complete = !closed;
+      if (complete) {
+        progress = 1;
+      }
+    } catch (ReflectiveOperationException | RuntimeException ex) {
+      error = ex;
+    }
+  }
+
+  /**
+   * Indexes fields of the specified struct.
+   *
+   * @param struct Structure to index
+   * @param id Identifier of the node, representing {@code struct}
+   * @param from Progress before indexing of this struct
+   * @param to Progress after indexing of this struct
+   */
+  private void index(KaitaiStruct struct, int id, double from, double to) throws ReflectiveOperationException {
+    final List<Method> fields = getters(struct.getClass());
+
+    final int size = fields.size();
+    for (int i = 0; i < size && !closed; ++i) {
+      final Method getter = fields.get(i);
+      final double start = from + (to - from) * i / size;
+      final double end   = from + (to - from) * (i + 1) / size;
+      index(getter.invoke(struct), id, i, getter.getName(), start, end);
+    }
+    // Stopped indexing does not reach the end
+    if (!closed) {
+      progress = to;
+    }
+  }
+
+  /**
+   * Returns getters of the sequence fields of the specified class in order of
+   * declaration.
+   *
+   * @param clazz Class, generated by KaitaiStruct
+   * @return Cached list of getters
+   */
+  private List<Method> getters(Class<?> clazz) throws ReflectiveOperationException {
+    List<Method> fields = getters.get(clazz);
+    if (fields == null) {
+      fields = new ArrayList<>();
+      StructNode.getters(clazz, fields, new ArrayList<>());
+      getters.put(clazz, fields);
+    }
+    return fields;
+  }
+
+  private void index(Object value, int parent, int index, String name, double from, double to) throws ReflectiveOperationException {
+    if (value instanceof KaitaiStruct) {
+      index((KaitaiStruct)value, add(parent, index, name, null), from, to);
+    } else
+    if (value instanceof List) {
+      final List<?> list = (List<?>)value;
+      final int id = add(parent, index, name, null);
+      final int size = list.size();
+      int i = 0;
+      for (final Object element : list) {
+        if (closed) {
+          return;
+        }
+        final double start = from + (to - from) * i / size;
+        final double end   = from + (to - from) * (i + 1) / size;
+        index(element, id, i, null, start, end);
+        ++i;
+      }
+    } else {
+      add(parent, index, name, value);
+      progress = to;
+    }
+  }
+
+  /**
+   * Registers the node in the index.
+   *
+   * @param parent Identifier of the parent node or {@code -1} for the root
+   * @param index Index of the node in the parent node
+   * @param name Name of the field or {@code null} for the root node and list elements
+   * @param value Value of the leaf node or {@code null} for structs and lists
+   *
+   * @return Identifier of the new node
+   */
+  private synchronized int add(int parent, int index, String name, Object value) {
+    if (count == parents.length) {
+      parents = Arrays.copyOf(parents, count * 2);
+      indices = Arrays.copyOf(indices, count * 2);
+      values  = Arrays.copyOf(values, count * 2);
+    }
+    final int id = count++;
+    parents[id] = parent;
+    indices[id] = index;
+    values[id]  = value;
+
+    if (name != null) {
+      post(names, name.toLowerCase(Locale.ROOT), id);
+    }
+    if (value instanceof byte[]) {
+      final byte[] bytes = (byte[])value;
+      postingsSize += blobs.add(id);
+      if (bytes.length < GRAM || bytes.length > MAX_GRAMMED_LENGTH) {
+        postingsSize += ungrammedBytes.add(id);
+      } else {
+        for (int i = 0; i + GRAM <= bytes.length; ++i) {
+          post(byteGrams, byteGram(bytes, i), id);
+        }
+      }
+    } else
+    if (value != null) {
+      post(exact, normalize(value), id);
+      if (value instanceof String) {
+        final String text = ((String)value).toLowerCase(Locale.ROOT);
+        postingsSize += texts.add(id);
+        if (text.length() < GRAM || text.length() > MAX_GRAMMED_LENGTH) {
+          postingsSize += ungrammedTexts.add(id);
+        } else {
+          for (int i = 0; i + GRAM <= text.length(); ++i) {
+            post(textGrams, textGram(text, i), id);
+          }
+        }
+      }
+    }
+    return id;
+  }
+
+  /** Adds identifier to the posting list of the key, unless it already in the list. */
+  private <K> void post(Map<K, IntList> map, K key, int id) {
+    IntList list = map.get(key);
+    if (list == null) {
+      list = new IntList();
+      map.put(key, list);
+      // HashMap entry, key and list objects
+      postingsSize += 48 + 24 + 32;
+    }
+    // Identifiers are added in ascending order, so duplicates could be only at the end
+    if (list.size == 0 || list.data[list.size - 1] != id) {
+      postingsSize += list.add(id);
+    }
+  }
+  //</editor-fold>
+
+  //<editor-fold defaultstate="collapsed" desc="Utils">
+  /**
+   * Converts value to the form, in which it is stored in the index.
+   *
+   * @param value Value of the leaf node
+   * @return Key for the {@link #exact} map
+   */
+  private static Object normalize(Object value) {
+    if (value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long) {
+      return ((Number)value).longValue();
+    }
+    if (value instanceof Float) {
+      return ((Float)value).doubleValue();
+    }
+    if (value instanceof String) {
+      return ((String)value).toLowerCase(Locale.ROOT);
+    }
+    if (value instanceof Enum) {
+      return ((Enum<?>)value).name().toLowerCase(Locale.ROOT);
+    }
+    return value;
+  }
+
+  private static long textGram(String text, int i) {
+    return (long)text.charAt(i) << 32 | (long)text.charAt(i + 1) << 16 | text.charAt(i + 2);
+  }
+
+  private static int byteGram(byte[] bytes, int i) {
+    return (bytes[i] & 0xFF) << 16 | (bytes[i + 1] & 0xFF) << 8 | (bytes[i + 2] & 0xFF);
+  }
+
+  private static boolean contains(byte[] bytes, byte[] pattern) {
+    outer:
+    for (int i = 0; i + pattern.length <= bytes.length; ++i) {
+      for (int j = 0; j < pattern.length; ++j) {
+        if (bytes[i + j] != pattern[j]) {
+          continue outer;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /** Intersects two sorted lists. {@code null} as first list means "all identifiers". */
+  private static IntList intersect(IntList a, IntList b) {
+    if (b == null) {
+      return new IntList();
+    }
+    if (a == null) {
+      return b;
+    }
+    final IntList result = new IntList();
+    for (int i = 0, j = 0; i < a.size && j < b.size;) {
+      final int x = a.data[i];
+      final int y = b.data[j];
+      if (x < y) ++i; else
+      if (x > y) ++j; else {
+        result.add(x);
+        ++i;
+        ++j;
+      }
+    }
+    return result;
+  }
+
+  private static int[] toArray(IntList list) {
+    return list == null ? new int[0] : Arrays.copyOf(list.data, list.size);
+  }
+
+  private static int[] sorted(IntList list) {
+    final int[] result = toArray(list);
+    Arrays.sort(result);
+    return result;
+  }
+
+  /** Growable list of primitive integers. */
+  private static final class IntList {
+    private int[] data = new int[2];
+    private int size;
+
+    /**
+     * Appends value to the list.
+     *
+     * @return Number of bytes, additionally allocated for the list
+     */
+    int add(int value) {
+      int allocated = 0;
+      if (size == data.length) {
+        data = Arrays.copyOf(data, size * 2);
+        allocated = size * 4;
+      }
+      data[size++] = value;
+      return allocated;
+    }
+  }
+  //</editor-fold>
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2022 Mingun.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ru.mingun.kaitai.struct;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import ru.mingun.kaitai.struct.test.Framed;
+import ru.mingun.kaitai.struct.test.Pair;
+
+/**
+ * Tests for {@link Coverage}.
+ *
+ * @author Mingun
+ */
+public class CoverageTest {
+  @Test
+  public void fieldsCoverTheirBytes() throws ReflectiveOperationException {
+    final Coverage coverage = new Coverage(new Pair(1, 2, 3, 4));
+
+    assertEquals(4, coverage.getSize());
+    assertEquals(2, coverage.getCoveredSize());
+    assertEquals(0.5, coverage.getCoveredRatio(), 0.0);
+    assertEquals(asList(new Span(0, 2)), coverage.getCovered());
+    assertEquals(asList(new Span(2, 4)), coverage.getGaps());
+    assertEquals(emptyList(), coverage.getOverlaps());
+    assertTrue(coverage.isCovered(1));
+    assertFalse(coverage.isCovered(2));
+  }
+
+  @Test
+  public void rangeQueriesAreClipped() throws ReflectiveOperationException {
+    final Coverage coverage = new Coverage(new Pair(1, 2, 3, 4));
+
+    assertEquals(1, coverage.getCoveredSize(1, 3));
+    assertEquals(0, coverage.getCoveredSize(3, 1));
+    assertEquals(asList(new Span(1, 2)), coverage.getCovered(1, 3));
+    assertEquals(asList(new Span(2, 3)), coverage.getGaps(1, 3));
+  }
+
+  @Test
+  public void substreamIsShifted() throws ReflectiveOperationException {
+    final Coverage coverage = new Coverage(new Framed(1, 7, 9));
+
+    assertEquals(asList(new Span(0, 2)), coverage.getCovered());
+    assertEquals(asList(new Span(2, 3)), coverage.getGaps());
+    assertEquals(emptyList(), coverage.getOverlaps());
+  }
+
+  @Test
+  public void instanceFromAncestorStreamIsNotShifted() throws ReflectiveOperationException {
+    final Framed framed = new Framed(1, 7, 9);
+    framed.body().head();
+    final Coverage coverage = new Coverage(framed);
+
+    assertEquals(asList(new Span(0, 2)), coverage.getCovered());
+    assertEquals(asList(new Span(0, 1)), coverage.getOverlaps());
+    assertTrue(coverage.isOverlapped(0));
+    assertFalse(coverage.isOverlapped(1));
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2022 Mingun.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ru.mingun.kaitai.struct.test;
+
+import io.kaitai.struct.KaitaiStream;
+import io.kaitai.struct.KaitaiStruct;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Imitation of a class, generated in debug mode for the type
+ * <pre>
+ * seq:
+ *   - id: value
+ *     type: u1
+ * </pre>
+ *
+ * @author Mingun
+ */
+public class Leaf extends KaitaiStruct {
+  public static String[] _seqFields = new String[] { "value" };
+  public Map<String, Integer> _attrStart = new HashMap<>();
+  public Map<String, Integer> _attrEnd = new HashMap<>();
+  public Map<String, ArrayList<Integer>> _arrStart = new HashMap<>();
+  public Map<String, ArrayList<Integer>> _arrEnd = new HashMap<>();
+
+  private int value;
+
+  public Leaf(KaitaiStream _io) {
+    super(_io);
+    _attrStart.put("value", _io.pos());
+    this.value = _io.readU1();
+    _attrEnd.put("value", _io.pos());
+  }
+
+  public int value() { return value; }
+}
@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2022 Mingun.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ru.mingun.kaitai.struct.test;
+
+import io.kaitai.struct.KaitaiStream;
+import io.kaitai.struct.KaitaiStruct;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Imitation of a class, generated in debug mode for the type
+ * <pre>
+ * seq:
+ *   - id: samples
+ *     type: sample
+ *     repeat: eos
+ *   - id: values
+ *     type: u1
+ *     repeat: eos
+ *   - id: mixed
+ *     type:
+ *       switch-on: _index % 2
+ *       cases:
+ *         0: other
+ *         1: leaf
+ *     repeat: eos
+ * </pre>
+ * All lists are read from the same data (imitates {@code pos: 0} of each list).
+ *
+ * @author Mingun
+ */
+public class Samples extends KaitaiStruct {
+  public static String[] _seqFields = new String[] { "samples", "values", "mixed" };
+  public Map<String, Integer> _attrStart = new HashMap<>();
+  public Map<String, Integer> _attrEnd = new HashMap<>();
+  public Map<String, ArrayList<Integer>> _arrStart = new HashMap<>();
+  public Map<String, ArrayList<Integer>> _arrEnd = new HashMap<>();
+
+  private ArrayList<Sample> samples;
+  private ArrayList<Integer> values;
+  private ArrayList<KaitaiStruct> mixed;
+
+  public Samples(int... data) {
+    this(Streams.of(data));
+  }
+
+  public Samples(KaitaiStream _io) {
+    super(_io);
+    this.samples = new ArrayList<>();
+    this.values = new ArrayList<>();
+    this.mixed = new ArrayList<>();
+    _attrStart.put("samples", _io.pos());
+    _arrStart.put("samples", new ArrayList<>());
+    _arrEnd.put("samples", new ArrayList<>());
+    while (!_io.isEof()) {
+      _arrStart.get("samples").add(_io.pos());
+      samples.add(new Sample(_io));
+      _arrEnd.get("samples").add(_io.pos());
+    }
+    _attrEnd.put("samples", _io.pos());
+
+    _io.seek(0);
+    _attrStart.put("values", _io.pos());
+    _arrStart.put("values", new ArrayList<>());
+    _arrEnd.put("values", new ArrayList<>());
+    while (!_io.isEof()) {
+      _arrStart.get("values").add(_io.pos());
+      values.add(_io.readU1());
+      _arrEnd.get("values").add(_io.pos());
+    }
+    _attrEnd.put("values", _io.pos());
+
+    _io.seek(0);
+    _attrStart.put("mixed", _io.pos());
+    _arrStart.put("mixed", new ArrayList<>());
+    _arrEnd.put("mixed", new ArrayList<>());
+    while (!_io.isEof()) {
+      _arrStart.get("mixed").add(_io.pos());
+      mixed.add(mixed.size() % 2 == 0 ? new Other(_io) : new Leaf(_io));
+      _arrEnd.get("mixed").add(_io.pos());
+    }
+    _attrEnd.put("mixed", _io.pos());
+  }
+
+  public ArrayList<Sample> samples() { return samples; }
+  public ArrayList<Integer> values() { return values; }
+  public ArrayList<KaitaiStruct> mixed() { return mixed; }
+}
@@ -0,0 +1,75 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2022 Mingun.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ru.mingun.kaitai.struct.test;
+
+import io.kaitai.struct.KaitaiStruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Imitation of a class, generated in debug mode for the type
+ * <pre>
+ * seq:
+ *   - id: texts
+ *     type: strz
+ *     repeat: eos
+ *   - id: blobs
+ *     size: 4
+ *     repeat: eos
+ * </pre>
+ * Values are not read from a stream, but are provided directly, so positions
+ * of all values are empty.
+ *
+ * @author Mingun
+ */
+public class Texts extends KaitaiStruct {
+  public static String[] _seqFields = new String[] { "texts", "blobs" };
+  public Map<String, Integer> _attrStart = new HashMap<>();
+  public Map<String, Integer> _attrEnd = new HashMap<>();
+  public Map<String, ArrayList<Integer>> _arrStart = new HashMap<>();
+  public Map<String, ArrayList<Integer>> _arrEnd = new HashMap<>();
+
+  private ArrayList<String> texts;
+  private ArrayList<byte[]> blobs;
+
+  public Texts(String[] texts, byte[]... blobs) {
+    super(Streams.of());
+    this.texts = new ArrayList<>(Arrays.asList(texts));
+    this.blobs = new ArrayList<>(Arrays.asList(blobs));
+    for (final String name : _seqFields) {
+      _attrStart.put(name, 0);
+      _attrEnd.put(name, 0);
+    }
+    _arrStart.put("texts", new ArrayList<>(Collections.nCopies(texts.length, 0)));
+    _arrEnd.put("texts", new ArrayList<>(Collections.nCopies(texts.length, 0)));
+    _arrStart.put("blobs", new ArrayList<>(Collections.nCopies(blobs.length, 0)));
+    _arrEnd.put("blobs", new ArrayList<>(Collections.nCopies(blobs.length, 0)));
+  }
+
+  public ArrayList<String> texts() { return texts; }
+  public ArrayList<byte[]> blobs() { return blobs; }
+}
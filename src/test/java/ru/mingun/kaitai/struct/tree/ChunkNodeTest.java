@@ -0,0 +1,80 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2022 Mingun.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ru.mingun.kaitai.struct.tree;
+
+import io.kaitai.struct.ByteBufferKaitaiStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import ru.mingun.kaitai.struct.Span;
+import ru.mingun.kaitai.struct.test.Records;
+
+/**
+ * Tests for {@link ChunkNode#asByteBuffer} and {@link ChunkNode#asInputStream}.
+ *
+ * @author Mingun
+ */
+public class ChunkNodeTest {
+  @Test
+  public void bufferContainsNodeBytes() throws ReflectiveOperationException {
+    final StructModel model = new StructModel(new Records(1, 2, 3));
+    final ListNode items = (ListNode)model.getRoot().getChildAt(0);
+
+    final ByteBuffer buffer = items.getChildAt(1).asByteBuffer();
+    assertTrue(buffer.isReadOnly());
+    assertEquals(0, buffer.position());
+    assertEquals(1, buffer.remaining());
+    assertEquals(2, buffer.get(0));
+
+    assertEquals(3, items.asByteBuffer().remaining());
+  }
+
+  @Test
+  public void streamReadsNodeBytes() throws ReflectiveOperationException, IOException {
+    final StructModel model = new StructModel(new Records(1, 2, 3));
+    final InputStream stream = ((ChunkNode)model.getRoot().getChildAt(0)).asInputStream();
+
+    assertEquals(3, stream.available());
+    final byte[] bytes = new byte[4];
+    assertEquals(3, stream.read(bytes));
+    assertEquals(2, bytes[1]);
+    assertEquals(-1, stream.read());
+  }
+
+  @Test
+  public void bytesAfterStreamLimitAreNotExposed() throws ReflectiveOperationException {
+    final ByteBuffer data = ByteBuffer.wrap(new byte[] { 1, 2, 3, 4 });
+    data.limit(2);
+    final StructNode root = new StructModel(new Records(new ByteBufferKaitaiStream(data))).getRoot();
+    assertEquals(2, root.asByteBuffer().remaining());
+
+    final SimpleNode node = new SimpleNode("node", null, Object.class, root, new Span(1, 4), true);
+    assertNull(node.asByteBuffer());
+    assertNull(node.asInputStream());
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2022 Mingun.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ru.mingun.kaitai.struct.tree;
+
+import io.kaitai.struct.KaitaiStruct;
+import java.util.DoubleSummaryStatistics;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import ru.mingun.kaitai.struct.test.Leaf;
+import ru.mingun.kaitai.struct.test.Other;
+import ru.mingun.kaitai.struct.test.Samples;
+
+/**
+ * Tests for {@link ListTableModel}.
+ *
+ * @author Mingun
+ */
+public class ListTableModelTest {
+  /** Number of rows, that occupies more than one block of {@link Column}. */
+  private static final int SIZE = Column.BLOCK_SIZE + 44;
+
+  private static ListTableModel table(int list) throws ReflectiveOperationException {
+    final int[] data = new int[SIZE];
+    for (int i = 0; i < SIZE; ++i) {
+      data[i] = i % 7;
+    }
+    final StructModel model = new StructModel(new Samples(data));
+    return new ListTableModel((ListNode)model.getRoot().getChildAt(list));
+  }
+
+  private static void assertSorted(ListTableModel table, int column, boolean ascending) {
+    final int[] order = table.sort(column, ascending);
+    assertEquals(SIZE, order.length);
+    for (int i = 1; i < SIZE; ++i) {
+      final Comparable<Object> prev = (Comparable<Object>)table.getValueAt(order[i - 1], column);
+      final Comparable<Object> next = (Comparable<Object>)table.getValueAt(order[i], column);
+      final int cmp = prev == null
+        ? (next == null ? 0 : -1)
+        : (next == null ? 1 : prev.compareTo(next));
+      assertTrue((ascending ? cmp : -cmp) < 0 || cmp == 0 && order[i - 1] < order[i]);
+    }
+  }
+
+  @Test
+  public void structFieldsAreColumns() throws ReflectiveOperationException {
+    final ListTableModel table = table(0);
+
+    assertEquals(SIZE, table.getRowCount());
+    assertEquals(4, table.getColumnCount());
+    assertEquals("value", table.getColumnName(0));
+    assertEquals("odd", table.getColumnName(1));
+    assertEquals("label", table.getColumnName(2));
+    assertEquals("score", table.getColumnName(3));
+    assertEquals(Integer.class, table.getColumnClass(0));
+    assertEquals(Boolean.class, table.getColumnClass(1));
+    assertEquals(String.class, table.getColumnClass(2));
+    assertEquals(Long.class, table.getColumnClass(3));
+  }
+
+  @Test
+  public void valuesAreLoadedInEachBlock() throws ReflectiveOperationException {
+    final ListTableModel table = table(0);
+
+    // Rows on both sides of the block boundary, starting from the last block
+    for (final int row : new int[] { SIZE - 1, Column.BLOCK_SIZE, Column.BLOCK_SIZE - 1, 0 }) {
+      final int value = row % 7;
+      assertEquals(value, table.getValueAt(row, 0));
+      assertEquals(value % 2 == 1, table.getValueAt(row, 1));
+      assertEquals(value == 0 ? null : "item " + value, table.getValueAt(row, 2));
+      assertEquals(value == 0 ? null : value * 10L, table.getValueAt(row, 3));
+    }
+  }
+
+  @Test
+  public void elementsOfNotStructListAreColumn() throws ReflectiveOperationException {
+    final ListTableModel table = table(1);
+
+    assertEquals(1, table.getColumnCount());
+    assertEquals("values", table.getColumnName(0));
+    assertEquals(Integer.class, table.getColumnClass(0));
+    assertEquals(Column.BLOCK_SIZE % 7, table.getValueAt(Column.BLOCK_SIZE, 0));
+  }
+
+  @Test
+  public void elementsOfSwitchTypedListAreColumn() throws ReflectiveOperationException {
+    final ListTableModel table = table(2);
+
+    assertEquals(1, table.getColumnCount());
+    assertEquals("mixed", table.getColumnName(0));
+    assertEquals(KaitaiStruct.class, table.getColumnClass(0));
+    assertTrue(table.getValueAt(0, 0) instanceof Other);
+    assertTrue(table.getValueAt(1, 0) instanceof Leaf);
+    assertNull(table.getStatistics(0));
+  }
+
+  @Test
+  public void statisticsSkipNulls() throws ReflectiveOperationException {
+    final ListTableModel table = table(0);
+
+    final DoubleSummaryStatistics value = table.getStatistics(0);
+    assertEquals(SIZE, value.getCount());
+    assertEquals(0, value.getMin(), 0.0);
+    assertEquals(6, value.getMax(), 0.0);
+
+    final DoubleSummaryStatistics score = table.getStatistics(3);
+    assertEquals(SIZE - (SIZE + 6) / 7, score.getCount());
+    assertEquals(10, score.getMin(), 0.0);
+    assertEquals(60, score.getMax(), 0.0);
+
+    assertNull(table.getStatistics(1));
+    assertNull(table.getStatistics(2));
+  }
+
+  @Test
+  public void sortIsStableInBothDirections() throws ReflectiveOperationException {
+    final ListTableModel table = table(0);
+
+    for (int column = 0; column < table.getColumnCount(); ++column) {
+      assertSorted(table, column, true);
+      assertSorted(table, column, false);
+    }
+    // Nulls go first
+    assertNull(table.getValueAt(table.sort(3, true)[0], 3));
+    assertNull(table.getValueAt(table.sort(3, false)[SIZE - 1], 3));
+    assertFalse((Boolean)table.getValueAt(table.sort(1, true)[0], 1));
+  }
+}
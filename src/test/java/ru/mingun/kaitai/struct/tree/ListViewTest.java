@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2022 Mingun.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ru.mingun.kaitai.struct.tree;
+
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import javax.swing.tree.DefaultTreeModel;
+import org.junit.Test;
+import ru.mingun.kaitai.struct.test.Leaf;
+import ru.mingun.kaitai.struct.test.Records;
+
+/**
+ * Tests for {@link ListNode#sortedBy}, {@link ListNode#groupedBy} and {@link ListView}.
+ *
+ * @author Mingun
+ */
+public class ListViewTest {
+  private static ListNode items(int... data) throws ReflectiveOperationException {
+    return (ListNode)new StructModel(new Records(data)).getRoot().getChildAt(0);
+  }
+
+  private static int[] order(ListView view) {
+    final int[] order = new int[view.getChildCount()];
+    for (int i = 0; i < order.length; ++i) {
+      order[i] = view.getListIndex(i);
+    }
+    return order;
+  }
+
+  @Test
+  public void sortIsStable() throws ReflectiveOperationException {
+    final ListNode items = items(3, 1, 2, 1);
+
+    assertArrayEquals(new int[] { 1, 3, 2, 0 }, order(items.sortedBy("value", true)));
+    assertArrayEquals(new int[] { 0, 2, 1, 3 }, order(items.sortedBy("value", false)));
+    // Structs are not comparable, so order is not changed
+    assertArrayEquals(new int[] { 0, 1, 2, 3 }, order(items.sortedBy(null, true)));
+  }
+
+  @Test
+  public void parallelSortIsStable() throws ReflectiveOperationException {
+    final int[] data = new int[20000];
+    final Random random = new Random(42);
+    for (int i = 0; i < data.length; ++i) {
+      data[i] = random.nextInt(16);
+    }
+    final ListView view = items(data).sortedBy("value", true);
+
+    assertEquals(data.length, view.getChildCount());
+    for (int i = 1; i < data.length; ++i) {
+      final int prev = view.getListIndex(i - 1);
+      final int next = view.getListIndex(i);
+      assertTrue(data[prev] < data[next] || data[prev] == data[next] && prev < next);
+    }
+  }
+
+  @Test
+  public void groupsRetainListOrder() throws ReflectiveOperationException {
+    final ListNode items = items(3, 1, 2, 1);
+    final List<ListView> groups = items.groupedBy("value");
+
+    assertEquals(3, groups.size());
+    assertEquals(1, ((Number)groups.get(0).getKey()).intValue());
+    assertArrayEquals(new int[] { 1, 3 }, order(groups.get(0)));
+    assertArrayEquals(new int[] { 2 }, order(groups.get(1)));
+    assertArrayEquals(new int[] { 0 }, order(groups.get(2)));
+  }
+
+  @Test
+  public void viewIsRoot() throws ReflectiveOperationException {
+    final ListNode items = items(3, 1, 2, 1);
+    final ListView view = items.groupedBy("value").get(0);
+
+    assertNull(view.getParent());
+    assertSame(items, view.getList());
+    assertSame(items.getChildAt(3), view.getChildAt(1));
+    assertEquals(1, view.getIndex(items.getChildAt(3)));
+    assertEquals(-1, view.getIndex(items.getChildAt(0)));
+
+    final DefaultTreeModel model = new DefaultTreeModel(view);
+    assertSame(view, model.getRoot());
+    assertEquals(2, model.getChildCount(view));
+    assertEquals(1, model.getIndexOfChild(view, items.getChildAt(3)));
+    assertEquals(1, ((Leaf)((StructNode)model.getChild(view, 0)).getValue()).value());
+  }
+}
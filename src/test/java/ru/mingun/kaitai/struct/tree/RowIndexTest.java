@@ -0,0 +1,159 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2022 Mingun.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ru.mingun.kaitai.struct.tree;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+import org.junit.Test;
+import ru.mingun.kaitai.struct.test.Records;
+import ru.mingun.kaitai.struct.test.Tagged;
+
+/**
+ * Tests for {@link RowIndex}.
+ *
+ * @author Mingun
+ */
+public class RowIndexTest {
+  /** Collects paths to all visible nodes in pre-order. */
+  private static void visible(TreeModel model, RowIndex rows, TreePath path, List<TreePath> result) {
+    result.add(path);
+    if (!rows.isExpanded(path)) {
+      return;
+    }
+    final Object node = path.getLastPathComponent();
+    for (int i = 0; i < model.getChildCount(node); ++i) {
+      visible(model, rows, path.pathByAddingChild(model.getChild(node, i)), result);
+    }
+  }
+
+  /** Collects paths to all nodes, that can be expanded. */
+  private static void expandable(TreeModel model, TreePath path, List<TreePath> result) {
+    final Object node = path.getLastPathComponent();
+    if (model.isLeaf(node)) {
+      return;
+    }
+    result.add(path);
+    for (int i = 0; i < model.getChildCount(node); ++i) {
+      expandable(model, path.pathByAddingChild(model.getChild(node, i)), result);
+    }
+  }
+
+  private static void check(TreeModel model, RowIndex rows) {
+    final List<TreePath> expected = new ArrayList<>();
+    visible(model, rows, new TreePath(model.getRoot()), expected);
+
+    assertEquals(expected.size(), rows.getRowCount());
+    for (int i = 0; i < expected.size(); ++i) {
+      assertEquals(expected.get(i), rows.getPathForRow(i));
+      assertEquals(expected.get(i).getLastPathComponent(), rows.getNodeForRow(i));
+      assertEquals(i, rows.getRowForPath(expected.get(i)));
+    }
+    assertEquals(expected, rows.getPathsForRows(0, expected.size()));
+  }
+
+  private static int created(ListNode list) throws ReflectiveOperationException {
+    final Field field = ListNode.class.getDeclaredField("created");
+    field.setAccessible(true);
+    return field.getInt(list);
+  }
+
+  @Test
+  public void rowsMatchExpandedNodes() throws ReflectiveOperationException {
+    final StructModel model = new StructModel(new Tagged(1, 2, 3, 4, 5, 6, 7, 8));
+    final RowIndex rows = new RowIndex(model);
+    final List<TreePath> paths = new ArrayList<>();
+    expandable(model, new TreePath(model.getRoot()), paths);
+
+    final Random random = new Random(42);
+    for (int i = 0; i < 200; ++i) {
+      final TreePath path = paths.get(random.nextInt(paths.size()));
+      if (random.nextBoolean()) {
+        rows.expand(path);
+      } else {
+        rows.collapse(path);
+      }
+      check(model, rows);
+    }
+  }
+
+  @Test
+  public void rowsFollowReload() throws ReflectiveOperationException {
+    final StructModel model = new StructModel(new Records(1, 2, 3));
+    final RowIndex rows = new RowIndex(model);
+    final ListNode items = (ListNode)model.getRoot().getChildAt(0);
+    rows.expand(new TreePath(new Object[] { model.getRoot(), items, items.getChildAt(2) }));
+    assertEquals(6, rows.getRowCount());
+
+    model.reload(new Records(1, 2));
+    check(model, rows);
+    assertEquals(4, rows.getRowCount());
+
+    model.reload(new Records(1, 2, 3, 4));
+    check(model, rows);
+    assertEquals(6, rows.getRowCount());
+  }
+
+  @Test
+  public void changesOfNotExpandedNodesAreIgnored() throws ReflectiveOperationException {
+    final StructModel model = new StructModel(new Tagged(1, 2, 3));
+    final RowIndex rows = new RowIndex(model);
+    final TreePath tag = new TreePath(new Object[] { model.getRoot(), model.getRoot().getChildAt(0) });
+    rows.expand(tag);
+    assertEquals(4, rows.getRowCount());
+
+    // Creates only one element of the list, which is not expanded
+    final ListNode items = (ListNode)model.getRoot().getChildAt(1);
+    items.sortedBy(null, true).getChildAt(0);
+    model.reload(new Tagged(1, 2, 4));
+
+    assertTrue(rows.isExpanded(tag));
+    assertEquals(4, rows.getRowCount());
+    check(model, rows);
+  }
+
+  @Test
+  public void listElementsAreNotCreated() throws ReflectiveOperationException {
+    final int[] data = new int[1000];
+    final StructModel model = new StructModel(new Records(data));
+    final RowIndex rows = new RowIndex(model);
+    final ListNode items = (ListNode)model.getRoot().getChildAt(0);
+    final TreePath list = new TreePath(new Object[] { model.getRoot(), items });
+    rows.expand(list);
+    final TreePath element = list.pathByAddingChild(items.getChildAt(500));
+    rows.expand(element);
+
+    assertEquals(1 + 1 + 1000 + 1, rows.getRowCount());
+    assertEquals(2 + 500, rows.getRowForPath(element));
+    assertEquals(element, rows.getPathForRow(2 + 500));
+    // Element, its field and the next element
+    assertEquals(3, rows.getPathsForRows(2 + 500, 2 + 503).size());
+    assertEquals(2, created(items));
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2022 Mingun.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ru.mingun.kaitai.struct.tree;
+
+import java.util.ArrayList;
+import static java.util.Collections.list;
+import java.util.List;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreePath;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import ru.mingun.kaitai.struct.test.Pair;
+import ru.mingun.kaitai.struct.test.Records;
+
+/**
+ * Tests for {@link StructModel#reload}.
+ *
+ * @author Mingun
+ */
+public class StructModelTest {
+  /** Records all events with the state of the model at the moment of event. */
+  private static final class Recorder implements TreeModelListener {
+    private final StructModel model;
+    final List<String> events = new ArrayList<>();
+    /** Children of the event parent at the moment of each event. */
+    final List<List<Object>> children = new ArrayList<>();
+    /** Nodes, carried by each event. */
+    final List<Object[]> nodes = new ArrayList<>();
+    /** If {@code false}, children of the event parent are not requested. */
+    private final boolean snapshot;
+
+    Recorder(StructModel model) {
+      this(model, true);
+    }
+
+    Recorder(StructModel model, boolean snapshot) {
+      this.model = model;
+      this.snapshot = snapshot;
+      model.addTreeModelListener(this);
+    }
+
+    private void record(String kind, TreeModelEvent e) {
+      final StringBuilder sb = new StringBuilder(kind);
+      for (final int i : e.getChildIndices() == null ? new int[0] : e.getChildIndices()) {
+        sb.append(' ').append(i);
+      }
+      events.add(sb.toString());
+      nodes.add(e.getChildren());
+      if (!snapshot) {
+        return;
+      }
+      final Object parent = e.getTreePath().getLastPathComponent();
+      final List<Object> nodes = new ArrayList<>();
+      for (int i = 0; i < model.getChildCount(parent); ++i) {
+        nodes.add(model.getChild(parent, i));
+      }
+      children.add(nodes);
+    }
+
+    @Override
+    public void treeNodesChanged(TreeModelEvent e) { record("changed", e); }
+    @Override
+    public void treeNodesInserted(TreeModelEvent e) { record("inserted", e); }
+    @Override
+    public void treeNodesRemoved(TreeModelEvent e) { record("removed", e); }
+    @Override
+    public void treeStructureChanged(TreeModelEvent e) { record("structure", e); }
+  }
+
+  @Test
+  public void reloadOfSameDataFiresNothing() throws ReflectiveOperationException {
+    final StructModel model = new StructModel(new Pair(1, 2));
+    list(model.getRoot().children());
+    final Recorder recorder = new Recorder(model);
+
+    model.reload(new Pair(1, 2));
+
+    assertEquals(new ArrayList<>(), recorder.events);
+  }
+
+  @Test
+  public void reloadRetainsCompatibleNodes() throws ReflectiveOperationException {
+    final StructModel model = new StructModel(new Pair(1, 2));
+    final TreeNode a = model.getRoot().getChildAt(0);
+    final SimpleNode value = (SimpleNode)a.getChildAt(0);
+    final Recorder recorder = new Recorder(model);
+
+    model.reload(new Pair(3, 2));
+
+    assertSame(a, model.getRoot().getChildAt(0));
+    assertSame(value, a.getChildAt(0));
+    assertEquals(3, value.getValue());
+    assertEquals(listOf("changed 0"), recorder.events);
+  }
+
+  @Test
+  public void replacedNodesAreAnnouncedAfterRetainedNodesArePlaced() throws ReflectiveOperationException {
+    final StructModel model = new StructModel(new Pair(1, 2));
+    final TreeNode a = model.getRoot().getChildAt(0);
+    final TreeNode b = model.getRoot().getChildAt(1);
+    final Recorder recorder = new Recorder(model);
+
+    // Type of `b` is changed from Leaf to Other
+    model.reload(new Pair(0, 2));
+
+    assertEquals(listOf("removed 1", "inserted 1"), recorder.events);
+    for (final List<Object> children : recorder.children.subList(0, 2)) {
+      assertSame(a, children.get(0));
+    }
+    assertSame(a, model.getRoot().getChildAt(0));
+    assertNotSame(b, model.getRoot().getChildAt(1));
+  }
+
+  @Test
+  public void replacementKeepsExpandedRowsOfRetainedNodes() throws ReflectiveOperationException {
+    final StructModel model = new StructModel(new Pair(1, 2));
+    final RowIndex rows = new RowIndex(model);
+    final TreePath a = new TreePath(new Object[] { model.getRoot(), model.getRoot().getChildAt(0) });
+    rows.expand(a);
+    assertEquals(4, rows.getRowCount());
+
+    model.reload(new Pair(0, 2));
+
+    assertTrue(rows.isExpanded(a));
+    assertEquals(4, rows.getRowCount());
+    assertSame(a.getLastPathComponent(), rows.getNodeForRow(1));
+  }
+
+  @Test
+  public void appendedElementsAreInserted() throws ReflectiveOperationException {
+    final StructModel model = new StructModel(new Records(1, 2));
+    final ListNode items = (ListNode)model.getRoot().getChildAt(0);
+    final List<? extends ChunkNode> before = list(items.children());
+    final Recorder recorder = new Recorder(model);
+
+    model.reload(new Records(1, 2, 3, 4));
+
+    assertEquals(listOf("inserted 2 3", "changed 0", "changed"), recorder.events);
+    assertSame(items, model.getRoot().getChildAt(0));
+    assertEquals(4, items.getChildCount());
+    assertArrayEquals(before.toArray(), list(items.children()).subList(0, 2).toArray());
+  }
+
+  @Test
+  public void removedElementsAreRemoved() throws ReflectiveOperationException {
+    final StructModel model = new StructModel(new Records(1, 2, 3));
+    final ListNode items = (ListNode)model.getRoot().getChildAt(0);
+    list(items.children());
+    final Recorder recorder = new Recorder(model);
+
+    model.reload(new Records(1));
+
+    assertEquals(listOf("removed 1 2", "changed 0", "changed"), recorder.events);
+    assertEquals(1, items.getChildCount());
+  }
+
+  @Test
+  public void createdElementsAreRetainedOnAppend() throws ReflectiveOperationException {
+    final StructModel model = new StructModel(new Records(data(100)));
+    final ListNode items = (ListNode)model.getRoot().getChildAt(0);
+    final RowIndex rows = new RowIndex(model);
+    // Only the element itself is created, as in a JTree with a large model
+    final TreePath element = new TreePath(new Object[] { model.getRoot(), items, items.getChildAt(50) });
+    rows.expand(element);
+    final Recorder recorder = new Recorder(model, false);
+
+    model.reload(new Records(data(120)));
+
+    final StringBuilder inserted = new StringBuilder("inserted");
+    for (int i = 100; i < 120; ++i) {
+      inserted.append(' ').append(i);
+    }
+    assertEquals(listOf(inserted.toString(), "changed 0", "changed"), recorder.events);
+    assertSame(element.getLastPathComponent(), items.getChildAt(50));
+    assertTrue(rows.isExpanded(element));
+    assertEquals(1 + 1 + 120 + 1, rows.getRowCount());
+  }
+
+  @Test
+  public void notCreatedElementsAreCreatedForRemoval() throws ReflectiveOperationException {
+    final StructModel model = new StructModel(new Records(1, 2, 3, 4));
+    final ListNode items = (ListNode)model.getRoot().getChildAt(0);
+    final TreeNode retained = items.getChildAt(1);
+    final Recorder recorder = new Recorder(model, false);
+
+    model.reload(new Records(1, 2));
+
+    assertEquals(listOf("removed 2 3", "changed 0", "changed"), recorder.events);
+    final Object[] removed = recorder.nodes.get(0);
+    assertEquals(2, removed.length);
+    assertEquals("[2]", ((ChunkNode)removed[0]).getName());
+    assertEquals("[3]", ((ChunkNode)removed[1]).getName());
+    assertSame(retained, items.getChildAt(1));
+  }
+
+  private static int[] data(int size) {
+    final int[] data = new int[size];
+    for (int i = 0; i < size; ++i) {
+      data[i] = i;
+    }
+    return data;
+  }
+
+  private static List<String> listOf(String... items) {
+    final List<String> result = new ArrayList<>();
+    for (final String item : items) {
+      result.add(item);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2022 Mingun.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ru.mingun.kaitai.struct.tree;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+import ru.mingun.kaitai.struct.Span;
+import ru.mingun.kaitai.struct.test.Framed;
+
+/**
+ * Tests for spans of the {@link StructNode} children.
+ *
+ * @author Mingun
+ */
+public class StructNodeTest {
+  @Test
+  public void substreamSpansAreShifted() throws ReflectiveOperationException {
+    final StructNode root = new StructModel(new Framed(1, 7, 9)).getRoot();
+    final StructNode body = (StructNode)root.getChildAt(1);
+
+    assertEquals(1, body.getStreamOffset());
+    assertEquals(new Span(1, 2), body.getSpan());
+    assertEquals(new Span(1, 2), ((ChunkNode)body.getChildAt(0)).getSpan());
+  }
+
+  @Test
+  public void instanceFromAncestorStreamIsNotShifted() throws ReflectiveOperationException {
+    final StructNode root = new StructModel(new Framed(1, 7, 9)).getRoot();
+    final StructNode body = (StructNode)root.getChildAt(1);
+    final StructNode head = (StructNode)body.getChildAt(1);
+
+    assertEquals(0, head.getStreamOffset());
+    assertEquals(new Span(0, 1), head.getSpan());
+    assertEquals(new Span(0, 1), ((ChunkNode)head.getChildAt(0)).getSpan());
+    assertEquals(1, head.asByteBuffer().get(0));
+  }
+}
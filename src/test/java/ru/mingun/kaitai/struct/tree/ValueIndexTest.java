@@ -0,0 +1,162 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2022 Mingun.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ru.mingun.kaitai.struct.tree;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import javax.swing.tree.TreePath;
+import org.junit.Test;
+import ru.mingun.kaitai.struct.test.Records;
+import ru.mingun.kaitai.struct.test.Texts;
+
+/**
+ * Tests for {@link ValueIndex}.
+ *
+ * @author Mingun
+ */
+public class ValueIndexTest {
+  private static ValueIndex build(StructModel model) throws InterruptedException {
+    final ValueIndex index = model.createIndex();
+    final long deadline = System.currentTimeMillis() + 10_000;
+    while (!index.isComplete() && index.getError() == null && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertNull(index.getError());
+    return index;
+  }
+
+  @Test
+  public void fieldsOfAllInstancesOfClassAreIndexed() throws ReflectiveOperationException, InterruptedException {
+    final StructModel model = new StructModel(new Records(1, 2, 3));
+    final ValueIndex index = build(model);
+
+    // root, items, 3 elements and 3 values
+    assertEquals(8, index.getNodeCount());
+    assertEquals(3, index.findName("value").length);
+
+    final int[] found = index.findValue(2);
+    assertEquals(1, found.length);
+    final TreePath path = index.getPath(found[0]);
+    final ListNode items = (ListNode)model.getRoot().getChildAt(0);
+    assertSame(items.getChildAt(1), path.getParentPath().getLastPathComponent());
+  }
+
+  @Test
+  public void textSearchIsCaseInsensitive() throws ReflectiveOperationException, InterruptedException {
+    final StructModel model = new StructModel(new Texts(new String[] { "Hello World", "say HELLO", "bye" }));
+    final ValueIndex index = build(model);
+
+    assertEquals(Arrays.asList("Hello World", "say HELLO"), values(index, index.findText("hello")));
+    assertEquals(Arrays.asList("Hello World"), values(index, index.findText("WORLD")));
+    assertEquals(Arrays.asList(), values(index, index.findText("hello!")));
+  }
+
+  @Test
+  public void shortNeedlesAreFound() throws ReflectiveOperationException, InterruptedException {
+    final StructModel model = new StructModel(
+      new Texts(new String[] { "Hello World", "say HELLO", "bye" }, new byte[] { 1, 2, 3, 4 }, new byte[] { 5 })
+    );
+    final ValueIndex index = build(model);
+
+    assertEquals(Arrays.asList("bye"), values(index, index.findText("YE")));
+    assertEquals(Arrays.asList("Hello World", "say HELLO"), values(index, index.findText("o")));
+    assertEquals(3, index.findText("").length);
+    assertEquals(1, index.findBytes(new byte[] { 5 }).length);
+    assertEquals(1, index.findBytes(new byte[] { 2, 3 }).length);
+  }
+
+  @Test
+  public void longValuesAreFound() throws ReflectiveOperationException, InterruptedException {
+    final char[] chars = new char[5000];
+    Arrays.fill(chars, 'x');
+    final String text = new String(chars) + "Needle";
+    final byte[] bytes = Arrays.copyOf(new byte[0], 5004);
+    bytes[5001] = 7;
+    bytes[5002] = 7;
+    bytes[5003] = 8;
+    final StructModel model = new StructModel(new Texts(new String[] { text, "needle" }, bytes, new byte[] { 7, 7, 8 }));
+    final ValueIndex index = build(model);
+
+    assertEquals(Arrays.asList(text, "needle"), values(index, index.findText("needle")));
+    assertEquals(2, index.findBytes(new byte[] { 7, 7, 8 }).length);
+    assertEquals(1, index.findBytes(new byte[] { 0, 7, 7, 8 }).length);
+  }
+
+  @Test
+  public void bytesShouldBeContiguous() throws ReflectiveOperationException, InterruptedException {
+    final StructModel model = new StructModel(
+      new Texts(new String[0], new byte[] { 1, 2, 3, 4 }, new byte[] { 1, 2, 3, 9, 2, 3, 4 })
+    );
+    final ValueIndex index = build(model);
+
+    assertArrayEquals(new int[0], index.findBytes(new byte[] { 2, 4 }));
+    // All 3-grams are present in the second array, but not in a row
+    final int[] found = index.findBytes(new byte[] { 1, 2, 3, 4 });
+    assertEquals(1, found.length);
+    assertArrayEquals(new byte[] { 1, 2, 3, 4 }, (byte[])value(index, found[0]));
+  }
+
+  @Test
+  public void completedIndexReportsItsState() throws ReflectiveOperationException, InterruptedException {
+    final ValueIndex index = build(new StructModel(new Records(1, 2, 3)));
+
+    assertTrue(index.isComplete());
+    assertEquals(1.0, index.getProgress(), 0.0);
+    assertTrue(index.getMemoryUsage() > 0);
+  }
+
+  @Test
+  public void closeStopsBuilding() throws ReflectiveOperationException, InterruptedException {
+    final ValueIndex index = new StructModel(new Records(new int[200_000])).createIndex();
+    index.close();
+    final Field thread = ValueIndex.class.getDeclaredField("thread");
+    thread.setAccessible(true);
+    ((Thread)thread.get(index)).join(10_000);
+
+    assertNull(index.getError());
+    assertFalse(index.isComplete());
+    assertTrue(index.getProgress() < 1);
+    assertTrue(index.getNodeCount() < 1 + 1 + 2 * 200_000);
+  }
+
+  private static Object value(ValueIndex index, int id) {
+    return ((ValueNode)index.getPath(id).getLastPathComponent()).getValue();
+  }
+
+  private static List<Object> values(ValueIndex index, int[] ids) {
+    final List<Object> result = new ArrayList<>();
+    for (final int id : ids) {
+      result.add(value(index, id));
+    }
+    return result;
+  }
+}